@@ -0,0 +1,34 @@
+package filipednb.github.com.hostfullyapi.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops an entity from the second-level cache once the transaction updating it commits (right away
+ * without a transaction), so the next read loads the committed row instead of a copy the cache kept.
+ */
+@Component
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    EntityCacheEvictor(final EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(final Class<?> entityClass, final Object id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entityManagerFactory.getCache().evict(entityClass, id);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(entityClass, id);
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package filipednb.github.com.hostfullyapi.cache;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * In-process (Ehcache, on heap) regions of the Hibernate second-level cache. Users and properties are read
+ * by every reservation but rarely change, so their entities are cached, as well as the guest/owner lookup
+ * of {@code UserRepository#findByIdAndType}. Each region is bounded and its entries expire; the update
+ * timestamps region must not expire, it is what invalidates cached query results.
+ *
+ * The cache manager is built here rather than from an XML file so its limits come from the application
+ * properties, and gets its own URI so each application context has its own.
+ */
+@Configuration
+class SecondLevelCacheConfig {
+
+    static final String USER_REGION = "user";
+
+    static final String PROPERTY_REGION = "property";
+
+    static final String USER_QUERY_REGION = "user-by-id-and-type";
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private static final long UPDATE_TIMESTAMPS_ENTRIES = 1000;
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(@Value("${hostfully.cache.max-entries:10000}") final long maxEntries,
+                                       @Value("${hostfully.cache.ttl:10m}") final Duration ttl) {
+        var caches = new HashMap<String, CacheConfiguration<?, ?>>();
+        for (var region : new String[] {USER_REGION, PROPERTY_REGION, USER_QUERY_REGION, QUERY_RESULTS_REGION}) {
+            caches.put(region, CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))
+                    .build());
+        }
+        // One entry per table, never evicted nor expired
+        caches.put(UPDATE_TIMESTAMPS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(UPDATE_TIMESTAMPS_ENTRIES))
+                .withExpiry(ExpiryPolicyBuilder.noExpiration())
+                .build());
+
+        var provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+
+        return provider.getCacheManager(URI.create("urn:hostfullyapi:hibernate:" + UUID.randomUUID()),
+                new DefaultConfiguration(caches, getClass().getClassLoader()));
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(final CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,54 @@
+package filipednb.github.com.hostfullyapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tables created before the switch from IDENTITY columns to pooled sequences already hold ids the new
+ * sequences would hand out again. Once the schema is up to date, each sequence is moved past the highest
+ * id of its table (plus one allocation block, as the pooled optimizer uses ids below the sequence value).
+ * Nothing is done when the sequence is already ahead.
+ */
+@Component
+class IdSequenceAligner implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "USER_SEQ", "\"USER\"",
+            "PROPERTY_SEQ", "property",
+            "BOOKING_SEQ", "booking",
+            "BLOCK_SEQ", "block");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    IdSequenceAligner(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    private void align(final String sequence, final String table) {
+        var maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        var nextValue = jdbcTemplate.queryForList(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class, sequence);
+
+        if (maxId == null || maxId == 0 || nextValue.isEmpty() || nextValue.get(0) > maxId + ALLOCATION_SIZE) {
+            return;
+        }
+
+        var restartWith = maxId + ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+        LOGGER.info("Sequence {} moved to {}, past the existing ids of {}", sequence, restartWith, table);
+    }
+}
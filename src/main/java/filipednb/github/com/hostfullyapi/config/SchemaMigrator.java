@@ -0,0 +1,41 @@
+package filipednb.github.com.hostfullyapi.config;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies the Flyway migrations of db/migration (indexes and other schema parts Hibernate doesn't
+ * manage) once Hibernate has created or updated the tables. Databases that predate the migrations are
+ * baselined at version 0, so every migration still runs once on them.
+ */
+@Component
+class SchemaMigrator implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private final DataSource dataSource;
+
+    SchemaMigrator(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        var result = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        if (result.migrationsExecuted > 0) {
+            LOGGER.info("Applied {} schema migrations, now at version {}", result.migrationsExecuted, result.targetSchemaVersion);
+        }
+    }
+}
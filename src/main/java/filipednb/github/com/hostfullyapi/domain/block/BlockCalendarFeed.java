@@ -0,0 +1,19 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Events of an iCalendar feed, read by {@link ICalendarReader}. Events that can't be imported are reported
+ * in errors instead of periods.
+ */
+@Value
+public class BlockCalendarFeed {
+
+    int events;
+
+    List<BlockImportInterval> periods;
+
+    List<BlockImportErrorResponse> errors;
+}
@@ -0,0 +1,34 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BlockCalendarSyncResponse {
+
+    /**
+     * VEVENTs read from the feed.
+     */
+    private int events;
+
+    /**
+     * Blocks inserted for periods of the feed not blocked yet.
+     */
+    private int created;
+
+    /**
+     * Upcoming blocks of the property that are no longer in the feed.
+     */
+    private int deleted;
+
+    /**
+     * Upcoming blocks matching a period of the feed, left as they are.
+     */
+    private int unchanged;
+
+    private int rejected;
+
+    private List<BlockImportErrorResponse> errors = new ArrayList<>();
+}
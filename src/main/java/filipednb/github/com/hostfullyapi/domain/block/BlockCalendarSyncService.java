@@ -0,0 +1,162 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.IntervalTree;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static filipednb.github.com.hostfullyapi.utils.DateUtils.validateDateRange;
+
+/**
+ * Makes the upcoming blocks a feed created on a property match the feed again. The feed periods are merged
+ * and diffed against the existing blocks of the same feed: exact matches are kept, blocks no longer in the
+ * feed are deleted and only the missing periods are inserted, so syncing an unchanged feed writes nothing.
+ * Blocks created by hand, imported or synced from another feed are never touched: periods overlapping one
+ * of them, or a booking, are rejected. Past events and blocks already over are left alone.
+ *
+ * Periods to insert follow the rules of a block created through the API: they start now or later and last
+ * at least {@value BlockImportService#MIN_HOURS_DURATION} hours, otherwise they are rejected.
+ */
+@Service
+public class BlockCalendarSyncService {
+
+    public static final String DEFAULT_FEED = "default";
+
+    private static final int MAX_ERRORS = 100;
+
+    private static final int MAX_FEED_LENGTH = 100;
+
+    private final BlockRepository repository;
+
+    private final PropertyService propertyService;
+
+    private final ReservationService reservationService;
+
+    BlockCalendarSyncService(final BlockRepository repository,
+                             final PropertyService propertyService,
+                             final ReservationService reservationService) {
+        this.repository = repository;
+        this.propertyService = propertyService;
+        this.reservationService = reservationService;
+    }
+
+    @Transactional
+    public BlockCalendarSyncResponse sync(final Long propertyId, final String feedName, final BlockCalendarFeed feed) {
+        if (feedName.isBlank() || feedName.length() > MAX_FEED_LENGTH) {
+            throw new BusinessRuleException("The feed name must have 1 to " + MAX_FEED_LENGTH + " characters");
+        }
+
+        var property = propertyService.findEntityById(propertyId);
+        var now = TimeProvider.now();
+
+        var result = new BlockCalendarSyncResponse();
+        result.setEvents(feed.getEvents());
+        result.setRejected(feed.getErrors().size());
+        result.getErrors().addAll(feed.getErrors());
+
+        var upcoming = feed.getPeriods().stream()
+                .filter(period -> period.getEndDate().isAfter(now))
+                .toList();
+        var wanted = upcoming.isEmpty() ? List.<BlockImportInterval>of() : BlockImportWriter.merge(upcoming);
+
+        var existing = new HashMap<List<LocalDateTime>, ArrayDeque<BlockEntity>>();
+        for (var block : repository.findAllByPropertyIdAndSourceAndFeedAndEndDateAfterOrderByStartDate(
+                propertyId, BlockSourceEnum.FEED, feedName, now)) {
+            existing.computeIfAbsent(List.of(block.getStartDate(), block.getEndDate()), key -> new ArrayDeque<>()).add(block);
+        }
+
+        var missing = new ArrayList<BlockImportInterval>();
+        for (var period : wanted) {
+            var matches = existing.get(List.of(period.getStartDate(), period.getEndDate()));
+            if (matches != null && !matches.isEmpty()) {
+                matches.poll();
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                missing.add(period);
+            }
+        }
+
+        // Released first, so in day claims mode the nights are free again for the new blocks
+        var obsolete = existing.values().stream().flatMap(ArrayDeque::stream).toList();
+        repository.deleteAll(obsolete);
+        obsolete.forEach(block -> reservationService.release(ReservationSlot.of(block)));
+        result.setDeleted(obsolete.size());
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // Every other reservation stays, the feed blocks just deleted may not be flushed yet
+        var deleted = obsolete.stream().map(BlockEntity::getId).collect(Collectors.toSet());
+        var reservations = new IntervalTree();
+        var from = missing.get(0).getStartDate();
+        var to = missing.stream().map(BlockImportInterval::getEndDate).max(Comparator.naturalOrder()).orElseThrow();
+        reservationService.findPeriods(propertyId, from, to).stream()
+                .filter(slot -> slot.getKind() == ReservationKind.BOOKING || !deleted.contains(slot.getId()))
+                .forEach(reservations::insert);
+
+        var created = new ArrayList<BlockEntity>();
+        for (var period : missing) {
+            try {
+                validateDateRange(period.getStartDate(), period.getEndDate(), BlockImportService.MIN_HOURS_DURATION);
+            } catch (InvalidDateRangeException e) {
+                result.setRejected(result.getRejected() + period.getRows());
+                addError(result, new BlockImportErrorResponse(period.getLine(), e.getMessage()));
+                continue;
+            }
+
+            var start = ReservationSlot.toEpochSecond(period.getStartDate());
+            var end = ReservationSlot.toEpochSecond(period.getEndDate());
+
+            var overlap = reservations.findFirstOverlap(start, end, null);
+            if (overlap != null) {
+                result.setRejected(result.getRejected() + period.getRows());
+                addError(result, new BlockImportErrorResponse(period.getLine(), overlap.getKind() == ReservationKind.BOOKING
+                        ? "Overlaps an existing booking"
+                        : "Overlaps an existing block"));
+                continue;
+            }
+
+            var block = new BlockEntity();
+            block.setProperty(property);
+            block.setStartDate(period.getStartDate());
+            block.setEndDate(period.getEndDate());
+            block.setSource(BlockSourceEnum.FEED);
+            block.setFeed(feedName);
+            created.add(block);
+        }
+
+        repository.saveAll(created);
+        try {
+            created.forEach(block -> reservationService.register(ReservationSlot.of(block)));
+        } catch (DataIntegrityViolationException e) {
+            throw new PropertyBusyException("A concurrent reservation took one of the feed periods, please retry the import");
+        }
+        result.setCreated(created.size());
+
+        return result;
+    }
+
+    private static void addError(final BlockCalendarSyncResponse result, final BlockImportErrorResponse error) {
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add(error);
+        }
+    }
+}
@@ -3,13 +3,21 @@ package filipednb.github.com.hostfullyapi.domain.block;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -19,11 +27,14 @@ import java.time.LocalDateTime;
 public class BlockEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "block_seq")
+    @SequenceGenerator(name = "block_seq", sequenceName = "block_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "property_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private PropertyEntity property;
 
     @Column(name = "start_date", nullable = false)
@@ -31,4 +42,19 @@ public class BlockEntity {
 
     @Column(name = "end_date", nullable = false)
     private LocalDateTime endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    @ColumnDefault("'MANUAL'")
+    private BlockSourceEnum source = BlockSourceEnum.MANUAL;
+
+    /**
+     * Name of the iCalendar feed of a {@link BlockSourceEnum#FEED} block.
+     */
+    @Column(length = 100)
+    private String feed;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 }
\ No newline at end of file
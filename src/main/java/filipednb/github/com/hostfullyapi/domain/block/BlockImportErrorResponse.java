@@ -0,0 +1,15 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockImportErrorResponse {
+
+    private int line;
+
+    private String message;
+}
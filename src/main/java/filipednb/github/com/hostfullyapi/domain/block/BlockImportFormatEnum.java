@@ -0,0 +1,24 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import org.springframework.http.MediaType;
+
+public enum BlockImportFormatEnum {
+    NDJSON,
+    CSV;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static BlockImportFormatEnum fromContentType(final String contentType) {
+        var mediaType = MediaType.parseMediaType(contentType);
+
+        if (MediaType.APPLICATION_NDJSON.includes(mediaType)) {
+            return NDJSON;
+        }
+        if (MediaType.parseMediaType(TEXT_CSV_VALUE).includes(mediaType)) {
+            return CSV;
+        }
+
+        throw new BusinessRuleException("Unsupported import format " + contentType);
+    }
+}
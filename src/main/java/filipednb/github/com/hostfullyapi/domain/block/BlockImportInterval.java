@@ -0,0 +1,22 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A period to block read from an import file, or several of them merged. Line is the first source line.
+ */
+@Value
+public class BlockImportInterval {
+
+    int line;
+
+    int rows;
+
+    Long propertyId;
+
+    LocalDateTime startDate;
+
+    LocalDateTime endDate;
+}
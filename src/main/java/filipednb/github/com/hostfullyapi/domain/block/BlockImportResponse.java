@@ -0,0 +1,49 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BlockImportResponse {
+
+    /**
+     * Data lines read from the file.
+     */
+    private int rows;
+
+    /**
+     * Blocks inserted, after merging overlapping rows and leaving out what was already blocked.
+     */
+    private int created;
+
+    /**
+     * Rows whose whole period was already blocked.
+     */
+    private int alreadyBlocked;
+
+    /**
+     * Parts left between existing blocks that were not created because they are shorter than the minimum
+     * block duration, each reported in the errors.
+     */
+    private int tooShort;
+
+    private int rejected;
+
+    /**
+     * First line of the chunk that failed and stopped the import, null when the whole file was read. None of
+     * that chunk was written and no line after it was read.
+     */
+    private Integer stoppedAtLine;
+
+    /**
+     * Why the chunk starting at stoppedAtLine failed.
+     */
+    private String stopReason;
+
+    /**
+     * First errors only, the counters above cover the whole file.
+     */
+    private List<BlockImportErrorResponse> errors = new ArrayList<>();
+}
@@ -0,0 +1,184 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.domain.reservation.OptimisticRetryPolicy;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBlockedException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static filipednb.github.com.hostfullyapi.utils.DateUtils.validateDateRange;
+
+/**
+ * Imports owner blocks from an NDJSON or CSV stream. The file is read line by line and written in chunks,
+ * each in its own transaction (see BlockImportWriter), so memory use and lock time don't grow with the
+ * file. A chunk that fails stops the import: the chunks before it stay imported, the report counts them and
+ * tells the line the import stopped at and why. Importing the same file again only adds what is missing.
+ *
+ * NDJSON lines hold a BlockRequest, CSV lines are "propertyId,startDate,endDate" with ISO dates and an
+ * optional header line.
+ */
+@Service
+public class BlockImportService {
+
+    static final int MIN_HOURS_DURATION = 24;
+
+    private static final int MAX_ERRORS = 100;
+
+    private final BlockImportWriter writer;
+
+    private final OptimisticRetryPolicy retryPolicy;
+
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    BlockImportService(final BlockImportWriter writer,
+                       final OptimisticRetryPolicy retryPolicy,
+                       final ObjectMapper objectMapper,
+                       @Value("${hostfully.block-import.chunk-size:1000}") final int chunkSize) {
+        this.writer = writer;
+        this.retryPolicy = retryPolicy;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public BlockImportResponse importBlocks(final BlockImportFormatEnum format, final InputStream input) {
+        var report = new BlockImportResponse();
+        var chunk = new TreeMap<Long, List<BlockImportInterval>>();
+        var buffered = 0;
+
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            var lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (format == BlockImportFormatEnum.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+
+                report.setRows(report.getRows() + 1);
+                try {
+                    var interval = parse(format, line.trim(), lineNumber);
+                    chunk.computeIfAbsent(interval.getPropertyId(), id -> new ArrayList<>()).add(interval);
+                    buffered++;
+                } catch (BusinessRuleException | InvalidDateRangeException e) {
+                    report.setRejected(report.getRejected() + 1);
+                    addError(report, new BlockImportErrorResponse(lineNumber, e.getMessage()));
+                }
+
+                if (buffered == chunkSize) {
+                    if (!flush(chunk, report)) {
+                        return report;
+                    }
+                    buffered = 0;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the import file", e);
+        }
+
+        flush(chunk, report);
+
+        return report;
+    }
+
+    /**
+     * Writes the chunk and adds its counts to the report. Returns false when the chunk failed, nothing of it
+     * was written and the report tells the first line of the chunk.
+     */
+    private boolean flush(final TreeMap<Long, List<BlockImportInterval>> chunk, final BlockImportResponse report) {
+        if (chunk.isEmpty()) {
+            return true;
+        }
+
+        BlockImportResponse result;
+        try {
+            result = retryPolicy.run(() -> writer.write(chunk, MAX_ERRORS));
+        } catch (PropertyBusyException | PropertyBlockedException | OptimisticLockingFailureException e) {
+            report.setStoppedAtLine(chunk.values().stream()
+                    .flatMap(List::stream)
+                    .mapToInt(BlockImportInterval::getLine)
+                    .min()
+                    .orElseThrow());
+            report.setStopReason(e.getMessage());
+            return false;
+        } finally {
+            chunk.clear();
+        }
+
+        report.setCreated(report.getCreated() + result.getCreated());
+        report.setAlreadyBlocked(report.getAlreadyBlocked() + result.getAlreadyBlocked());
+        report.setTooShort(report.getTooShort() + result.getTooShort());
+        report.setRejected(report.getRejected() + result.getRejected());
+        result.getErrors().forEach(error -> addError(report, error));
+
+        return true;
+    }
+
+    private BlockImportInterval parse(final BlockImportFormatEnum format, final String line, final int lineNumber) {
+        var request = format == BlockImportFormatEnum.NDJSON ? parseJson(line) : parseCsv(line);
+
+        if (request.getPropertyId() == null) {
+            throw new BusinessRuleException("Property ID is mandatory");
+        }
+
+        // Validates or throw the InvalidDateRangeException
+        validateDateRange(request.getStartDate(), request.getEndDate(), MIN_HOURS_DURATION);
+
+        return new BlockImportInterval(lineNumber, 1, request.getPropertyId(), request.getStartDate(), request.getEndDate());
+    }
+
+    private BlockRequest parseJson(final String line) {
+        try {
+            return objectMapper.readValue(line, BlockRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new BusinessRuleException("Malformed JSON line");
+        }
+    }
+
+    private static BlockRequest parseCsv(final String line) {
+        var columns = line.split(",", -1);
+        if (columns.length != 3) {
+            throw new BusinessRuleException("Expected 3 columns: propertyId,startDate,endDate");
+        }
+
+        try {
+            var request = new BlockRequest();
+            request.setPropertyId(Long.valueOf(columns[0].trim()));
+            request.setStartDate(LocalDateTime.parse(columns[1].trim()));
+            request.setEndDate(LocalDateTime.parse(columns[2].trim()));
+
+            return request;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BusinessRuleException("Malformed CSV line");
+        }
+    }
+
+    private static boolean isCsvHeader(final String line) {
+        return !Character.isDigit(line.trim().charAt(0));
+    }
+
+    private static void addError(final BlockImportResponse report, final BlockImportErrorResponse error) {
+        if (report.getErrors().size() < MAX_ERRORS) {
+            report.getErrors().add(error);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.IntervalTree;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Writes one chunk of a block import in its own transaction, so a file of any size never holds more than
+ * a chunk of entities nor a lock for longer than a chunk.
+ */
+@Component
+public class BlockImportWriter {
+
+    private final BlockRepository repository;
+
+    private final PropertyService propertyService;
+
+    private final ReservationService reservationService;
+
+    BlockImportWriter(final BlockRepository repository,
+                      final PropertyService propertyService,
+                      final ReservationService reservationService) {
+        this.repository = repository;
+        this.propertyService = propertyService;
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Properties are handled in id order, each with one lock and one range query over the chunk's period.
+     * Rows overlapping each other are merged; parts already blocked are left out, so importing the same
+     * calendar twice creates nothing the second time. A period overlapping an active booking is rejected.
+     * Parts left between existing blocks that are shorter than the minimum block duration are left out.
+     */
+    @Transactional
+    public BlockImportResponse write(final SortedMap<Long, List<BlockImportInterval>> chunk, final int maxErrors) {
+        var result = new BlockImportResponse();
+
+        for (Map.Entry<Long, List<BlockImportInterval>> entry : chunk.entrySet()) {
+            var property = propertyService.findLockedEntityById(entry.getKey());
+
+            if (property.isEmpty()) {
+                for (var interval : entry.getValue()) {
+                    reject(result, interval, "Property not found", maxErrors);
+                }
+                continue;
+            }
+
+            writeProperty(property.get(), entry.getValue(), result, maxErrors);
+        }
+
+        return result;
+    }
+
+    private void writeProperty(final PropertyEntity property,
+                               final List<BlockImportInterval> intervals,
+                               final BlockImportResponse result,
+                               final int maxErrors) {
+        var from = intervals.stream().map(BlockImportInterval::getStartDate).min(Comparator.naturalOrder()).orElseThrow();
+        var to = intervals.stream().map(BlockImportInterval::getEndDate).max(Comparator.naturalOrder()).orElseThrow();
+
+        var bookings = new IntervalTree();
+        var blocks = new ArrayList<ReservationSlot>();
+        for (var slot : reservationService.findPeriods(property.getId(), from, to)) {
+            if (slot.getKind() == ReservationKind.BOOKING) {
+                bookings.insert(slot);
+            } else {
+                blocks.add(slot);
+            }
+        }
+
+        // Checked row by row before merging, so a row touching a rejected one is still imported
+        var accepted = new ArrayList<BlockImportInterval>();
+        for (var interval : intervals) {
+            var start = ReservationSlot.toEpochSecond(interval.getStartDate());
+            var end = ReservationSlot.toEpochSecond(interval.getEndDate());
+
+            if (bookings.findFirstOverlap(start, end, null) != null) {
+                reject(result, interval, "Overlaps an existing booking", maxErrors);
+            } else {
+                accepted.add(interval);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        var created = new ArrayList<BlockEntity>();
+        for (var interval : merge(accepted)) {
+            var pieces = subtract(interval.getStartDate(), interval.getEndDate(), blocks);
+            if (pieces.isEmpty()) {
+                result.setAlreadyBlocked(result.getAlreadyBlocked() + interval.getRows());
+            }
+            for (var piece : pieces) {
+                if (Duration.between(piece[0], piece[1]).toHours() < BlockImportService.MIN_HOURS_DURATION) {
+                    result.setTooShort(result.getTooShort() + 1);
+                    addError(result, new BlockImportErrorResponse(interval.getLine(), String.format(
+                            "Left out %s to %s between existing blocks, shorter than %d hours",
+                            piece[0], piece[1], BlockImportService.MIN_HOURS_DURATION)), maxErrors);
+                    continue;
+                }
+                var block = new BlockEntity();
+                block.setProperty(property);
+                block.setStartDate(piece[0]);
+                block.setEndDate(piece[1]);
+                block.setSource(BlockSourceEnum.IMPORT);
+                created.add(block);
+            }
+        }
+
+        repository.saveAll(created);
+        try {
+            created.forEach(block -> reservationService.register(ReservationSlot.of(block)));
+        } catch (DataIntegrityViolationException e) {
+            throw new PropertyBusyException("A concurrent reservation took one of the imported periods, please retry the import");
+        }
+        result.setCreated(result.getCreated() + created.size());
+    }
+
+    /**
+     * Sorts the intervals and merges the overlapping or touching ones.
+     */
+    static List<BlockImportInterval> merge(final List<BlockImportInterval> intervals) {
+        var sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparing(BlockImportInterval::getStartDate).thenComparing(BlockImportInterval::getEndDate));
+
+        var merged = new ArrayList<BlockImportInterval>();
+        var current = sorted.get(0);
+        for (var next : sorted.subList(1, sorted.size())) {
+            if (next.getStartDate().isAfter(current.getEndDate())) {
+                merged.add(current);
+                current = next;
+            } else {
+                current = new BlockImportInterval(Math.min(current.getLine(), next.getLine()),
+                        current.getRows() + next.getRows(),
+                        current.getPropertyId(),
+                        current.getStartDate(),
+                        next.getEndDate().isAfter(current.getEndDate()) ? next.getEndDate() : current.getEndDate());
+            }
+        }
+        merged.add(current);
+
+        return merged;
+    }
+
+    /**
+     * Parts of [start, end) not covered by the given blocks, which are sorted by start date.
+     */
+    static List<LocalDateTime[]> subtract(final LocalDateTime start, final LocalDateTime end, final List<ReservationSlot> blocks) {
+        var pieces = new ArrayList<LocalDateTime[]>();
+        var cursor = start;
+
+        for (var block : blocks) {
+            if (!block.getEndDate().isAfter(cursor) || !block.getStartDate().isBefore(end)) {
+                continue;
+            }
+            if (block.getStartDate().isAfter(cursor)) {
+                pieces.add(new LocalDateTime[] {cursor, block.getStartDate()});
+            }
+            cursor = block.getEndDate();
+            if (!cursor.isBefore(end)) {
+                return pieces;
+            }
+        }
+        pieces.add(new LocalDateTime[] {cursor, end});
+
+        return pieces;
+    }
+
+    private static void reject(final BlockImportResponse result,
+                               final BlockImportInterval interval,
+                               final String message,
+                               final int maxErrors) {
+        result.setRejected(result.getRejected() + interval.getRows());
+        addError(result, new BlockImportErrorResponse(interval.getLine(), message), maxErrors);
+    }
+
+    private static void addError(final BlockImportResponse result, final BlockImportErrorResponse error, final int maxErrors) {
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(error);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package filipednb.github.com.hostfullyapi.domain.block;
 
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationPeriodView;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -8,15 +10,39 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BlockRepository extends JpaRepository<BlockEntity, Long> {
 
+    /**
+     * The property and its owner are lazy but part of every block response, so they are joined here.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"property", "property.owner"})
+    List<BlockEntity> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"property", "property.owner"})
+    Optional<BlockEntity> findById(Long id);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT b FROM BlockEntity b WHERE b.property.id = :propertyId "
             + "AND (b.startDate < :endDate AND b.endDate > :startDate)")
     List<BlockEntity> findOneByPropertyIdAndDateRange(Long propertyId, LocalDateTime startDate, LocalDateTime endDate);
 
+    @Query("SELECT b.id AS id, b.startDate AS startDate, b.endDate AS endDate FROM BlockEntity b "
+            + "WHERE b.property.id = :propertyId")
+    List<ReservationPeriodView> findPeriodsByPropertyId(Long propertyId);
+
+    List<BlockEntity> findAllByPropertyIdAndSourceAndFeedAndEndDateAfterOrderByStartDate(Long propertyId,
+                                                                                         BlockSourceEnum source,
+                                                                                         String feed,
+                                                                                         LocalDateTime endDate);
+
+    @Query("SELECT b.property.id FROM BlockEntity b WHERE b.id = :id")
+    Optional<Long> findPropertyIdById(Long id);
+
 }
 
 
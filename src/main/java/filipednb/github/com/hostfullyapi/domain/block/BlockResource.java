@@ -1,9 +1,13 @@
 package filipednb.github.com.hostfullyapi.domain.block;
 
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationCommandExecutor;
+import filipednb.github.com.hostfullyapi.idempotency.IdempotencyService;
 import filipednb.github.com.hostfullyapi.logger.Loggable;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +15,11 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -28,10 +34,22 @@ public class BlockResource {
 
     private final BlockMapper mapper;
 
+    private final ReservationCommandExecutor executor;
+
+    private final IdempotencyService idempotencyService;
+
+    private final BlockImportService importService;
+
     BlockResource(final BlockService service,
-                  final BlockMapper mapper) {
+                  final BlockMapper mapper,
+                  final ReservationCommandExecutor executor,
+                  final IdempotencyService idempotencyService,
+                  final BlockImportService importService) {
         this.service = service;
         this.mapper = mapper;
+        this.executor = executor;
+        this.idempotencyService = idempotencyService;
+        this.importService = importService;
     }
 
     @GetMapping
@@ -50,23 +68,47 @@ public class BlockResource {
     }
 
     @PostMapping
-    public ResponseEntity<BlockResponse> createBlock(final @Valid @RequestBody BlockRequest block) {
-        var createdBlock = service.createBlock(block);
-        var uriLocation = URI.create("/blocks/" + createdBlock.getId());
+    public ResponseEntity<BlockResponse> createBlock(
+            final @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            final @Valid @RequestBody BlockRequest block) {
+        return idempotencyService.execute("POST /blocks", idempotencyKey, block, BlockResponse.class, () -> {
+            var createdBlock = executor.execute(block::getPropertyId, () -> service.createBlock(block));
+            var uriLocation = URI.create("/blocks/" + createdBlock.getId());
+
+            return ResponseEntity.created(uriLocation).body(createdBlock);
+        });
+    }
+
+    /**
+     * A chunk spans several properties, so the import doesn't go through the single-writer lanes, it takes
+     * the property locks itself, like the booking batch.
+     */
+    @Operation(summary = "Imports blocks from an NDJSON or CSV (propertyId,startDate,endDate) stream, written in chunks")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BlockImportFormatEnum.TEXT_CSV_VALUE})
+    public ResponseEntity<BlockImportResponse> importBlocks(final @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            final InputStream body) {
+        var format = BlockImportFormatEnum.fromContentType(contentType);
 
-        return ResponseEntity.created(uriLocation).body(createdBlock);
+        return ResponseEntity.ok(importService.importBlocks(format, body));
     }
 
+    /**
+     * Runs on the lane of the property the block is on, a block moved to another property relies on the
+     * property locks taken by the service to be serialized with the writes of its new property.
+     */
     @PatchMapping("/{id}")
     public ResponseEntity<BlockResponse> updateBlock(final @PathVariable Long id, final @RequestBody BlockRequest request) {
-        var updatedBlock = service.updateBlock(id, request);
+        var updatedBlock = executor.execute(() -> service.findPropertyId(id), () -> service.updateBlock(id, request));
 
         return ResponseEntity.ok(mapper.toResponse(updatedBlock));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBlock(final @PathVariable Long id) {
-        service.deleteBlock(id);
+        executor.execute(() -> service.findPropertyId(id), () -> {
+            service.deleteBlock(id);
+            return null;
+        });
 
         return ResponseEntity.noContent().build();
     }
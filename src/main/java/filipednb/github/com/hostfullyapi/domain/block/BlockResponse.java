@@ -1,6 +1,6 @@
 package filipednb.github.com.hostfullyapi.domain.block;
 
-import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyResponse;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -10,7 +10,7 @@ public class BlockResponse {
 
     private Long id;
 
-    private PropertyEntity property;
+    private PropertyResponse property;
 
     private LocalDateTime startDate;
 
@@ -1,15 +1,21 @@
 package filipednb.github.com.hostfullyapi.domain.block;
 
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
 import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
 import filipednb.github.com.hostfullyapi.exception.PropertyBlockedException;
 import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static filipednb.github.com.hostfullyapi.utils.DateUtils.validateDateRange;
 
@@ -47,11 +53,13 @@ public class BlockService {
         validateDateRange(startDate, endDate, 24);
 
         // Property busy validation
-        if (reservationService.isPropertyBlockedOnDate(property.getId(), startDate, endDate)) {
+        var conflict = reservationService.findConflict(property, startDate, endDate, ReservationKind.BLOCK);
+
+        if (conflict.isPresent() && conflict.get().getKind() == ReservationKind.BLOCK) {
             throw new PropertyBlockedException("Property is already blocked on this date range");
         }
 
-        if (reservationService.existsBookingOnDate(property.getId(), startDate, endDate)) {
+        if (conflict.isPresent()) {
             throw new PropertyBusyException("Property is already booked on this date range");
         }
 
@@ -60,7 +68,19 @@ public class BlockService {
         block.setStartDate(startDate);
         block.setEndDate(endDate);
 
-        return mapper.toResponse(repository.save(block));
+        var response = mapper.toResponse(repository.save(block));
+        var slot = ReservationSlot.of(block);
+
+        try {
+            reservationService.register(slot);
+        } catch (DataIntegrityViolationException e) {
+            if (reservationService.findClaimHolder(slot) == ReservationKind.BLOCK) {
+                throw new PropertyBlockedException("Property is already blocked on this date range");
+            }
+            throw new PropertyBusyException("Property is already booked on this date range");
+        }
+
+        return response;
     }
 
     @Transactional
@@ -71,22 +91,39 @@ public class BlockService {
 
         var block = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Block not found with id " + id));
+        var previousSlot = ReservationSlot.of(block);
 
         var property = propertyService.findEntityById(propertyId);
 
-        if (reservationService.isPropertyBlockedOnDate(propertyId, startDate, endDate)) {
-            throw new PropertyBusyException("Property is already blocked on this date range");
-        }
+        var conflict = reservationService.findConflict(property, startDate, endDate, ReservationKind.BLOCK);
 
-        if (reservationService.existsBookingOnDate(propertyId, startDate, endDate)) {
-            throw new PropertyBusyException("Property is already booked on this date range");
+        if (conflict.isPresent()) {
+            throw new PropertyBusyException(conflict.get().getKind() == ReservationKind.BLOCK
+                    ? "Property is already blocked on this date range"
+                    : "Property is already booked on this date range");
         }
 
         block.setProperty(property);
         block.setEndDate(blockRequest.getEndDate());
         block.setStartDate(blockRequest.getStartDate());
 
-        return repository.save(block);
+        var updatedBlock = repository.save(block);
+
+        reservationService.release(previousSlot);
+        var slot = ReservationSlot.of(block);
+
+        try {
+            reservationService.register(slot);
+        } catch (DataIntegrityViolationException e) {
+            throw new PropertyBusyException(reservationService.findClaimHolder(slot) == ReservationKind.BLOCK
+                    ? "Property is already blocked on this date range"
+                    : "Property is already booked on this date range");
+        }
+
+        // The response is mapped by the caller, possibly on another thread after the session is closed
+        Optional.ofNullable(updatedBlock.getProperty()).map(PropertyEntity::getOwner).ifPresent(Hibernate::initialize);
+
+        return updatedBlock;
     }
 
     @Transactional
@@ -95,6 +132,12 @@ public class BlockService {
                 .orElseThrow(() -> new ResourceNotFoundException("Block not found with id " + id));
 
         repository.delete(block);
+        reservationService.release(ReservationSlot.of(block));
+    }
+
+    public Long findPropertyId(final Long id) {
+        return repository.findPropertyIdById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Block not found with id " + id));
     }
 
     public BlockResponse getBlock(final Long id) {
@@ -0,0 +1,10 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+/**
+ * Where a block comes from. An iCalendar sync only ever replaces the {@link #FEED} blocks of its own feed.
+ */
+public enum BlockSourceEnum {
+    MANUAL,
+    IMPORT,
+    FEED
+}
@@ -0,0 +1,176 @@
+package filipednb.github.com.hostfullyapi.domain.block;
+
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the VEVENTs of an iCalendar (RFC 5545) feed as periods to block. Only DTSTART, DTEND and STATUS
+ * are used: all-day dates start at midnight, times are taken as written (a TZID or a trailing Z is not
+ * converted, the API stores local times). Cancelled events are skipped.
+ */
+public final class ICalendarReader {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final int DATE_LENGTH = 8;
+
+    private static final int MAX_ERRORS = 100;
+
+    private ICalendarReader() {
+    }
+
+    public static BlockCalendarFeed read(final Long propertyId, final InputStream input) {
+        var periods = new ArrayList<BlockImportInterval>();
+        var errors = new ArrayList<BlockImportErrorResponse>();
+        var events = 0;
+
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            var lines = unfold(reader);
+            if (lines.isEmpty() || !lines.get(0).text().trim().equalsIgnoreCase("BEGIN:VCALENDAR")) {
+                throw new BusinessRuleException("The body is not an iCalendar feed");
+            }
+
+            Event event = null;
+            for (var line : lines) {
+                var text = line.text().trim();
+
+                if (text.equalsIgnoreCase("BEGIN:VEVENT")) {
+                    event = new Event(line.number());
+                } else if (event != null && text.equalsIgnoreCase("END:VEVENT")) {
+                    events++;
+                    try {
+                        event.toPeriod(propertyId).ifPresent(periods::add);
+                    } catch (BusinessRuleException e) {
+                        if (errors.size() < MAX_ERRORS) {
+                            errors.add(new BlockImportErrorResponse(event.line, e.getMessage()));
+                        }
+                    }
+                    event = null;
+                } else if (event != null) {
+                    event.set(name(text), text);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the iCalendar feed", e);
+        }
+
+        return new BlockCalendarFeed(events, periods, errors);
+    }
+
+    /**
+     * Joins folded lines (continuations start with a space or a tab) and numbers them by their first line.
+     */
+    private static List<Line> unfold(final BufferedReader reader) throws IOException {
+        var lines = new ArrayList<Line>();
+        var number = 0;
+        String raw;
+
+        while ((raw = reader.readLine()) != null) {
+            number++;
+            if (!lines.isEmpty() && (raw.startsWith(" ") || raw.startsWith("\t"))) {
+                var last = lines.remove(lines.size() - 1);
+                lines.add(new Line(last.number(), last.text() + raw.substring(1)));
+            } else if (!raw.isBlank()) {
+                lines.add(new Line(number, raw));
+            }
+        }
+
+        return lines;
+    }
+
+    private static String name(final String text) {
+        var end = 0;
+        while (end < text.length() && text.charAt(end) != ':' && text.charAt(end) != ';') {
+            end++;
+        }
+
+        return text.substring(0, end).toUpperCase();
+    }
+
+    private static String value(final String text) {
+        var colon = text.indexOf(':');
+
+        return colon < 0 ? "" : text.substring(colon + 1).trim();
+    }
+
+    private record Line(int number, String text) {
+    }
+
+    private static final class Event {
+
+        private final int line;
+
+        private String start;
+
+        private String end;
+
+        private boolean cancelled;
+
+        private Event(final int line) {
+            this.line = line;
+        }
+
+        private void set(final String name, final String text) {
+            switch (name) {
+                case "DTSTART" -> start = value(text);
+                case "DTEND" -> end = value(text);
+                case "STATUS" -> cancelled = value(text).equalsIgnoreCase("CANCELLED");
+                default -> {
+                    // Other properties don't matter for blocking
+                }
+            }
+        }
+
+        private Optional<BlockImportInterval> toPeriod(final Long propertyId) {
+            if (cancelled) {
+                return Optional.empty();
+            }
+            if (start == null) {
+                throw new BusinessRuleException("DTSTART is mandatory");
+            }
+
+            var startDate = parse(start, "DTSTART");
+            LocalDateTime endDate;
+            if (end != null) {
+                endDate = parse(end, "DTEND");
+            } else if (start.length() == DATE_LENGTH) {
+                endDate = startDate.plusDays(1);
+            } else {
+                throw new BusinessRuleException("DTEND is mandatory for events with a time");
+            }
+
+            if (!startDate.isBefore(endDate)) {
+                throw new BusinessRuleException("The event must end after it starts");
+            }
+
+            return Optional.of(new BlockImportInterval(line, 1, propertyId, startDate, endDate));
+        }
+    }
+
+    private static LocalDateTime parse(final String value, final String name) {
+        try {
+            var text = value.endsWith("Z") || value.endsWith("z") ? value.substring(0, value.length() - 1) : value;
+
+            return text.length() == DATE_LENGTH
+                    ? LocalDate.parse(text, DATE).atStartOfDay()
+                    : LocalDateTime.parse(text, DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new BusinessRuleException("Malformed " + name + " " + value);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchItemResponse {
+
+    private int index;
+
+    private BookingBatchItemStatusEnum status;
+
+    private String message;
+
+    private BookingResponse booking;
+}
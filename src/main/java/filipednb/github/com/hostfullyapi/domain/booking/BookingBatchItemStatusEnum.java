@@ -0,0 +1,11 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+public enum BookingBatchItemStatusEnum {
+    CREATED,
+    CONFLICT,
+    INVALID,
+    /**
+     * Valid item not created because another item failed in ALL_OR_NOTHING mode.
+     */
+    ABORTED
+}
@@ -0,0 +1,12 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+public enum BookingBatchModeEnum {
+    /**
+     * Nothing is created unless every item can be.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Valid items are created, the others are reported.
+     */
+    PARTIAL
+}
@@ -0,0 +1,22 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingBatchRequest {
+
+    @NotNull
+    private BookingBatchModeEnum mode = BookingBatchModeEnum.ALL_OR_NOTHING;
+
+    /**
+     * Items are validated one by one, an invalid item is reported instead of failing the whole request.
+     */
+    @NotEmpty
+    @Size(max = 1000)
+    private List<BookingRequest> bookings;
+}
@@ -0,0 +1,17 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingBatchResponse {
+
+    private BookingBatchModeEnum mode;
+
+    private int created;
+
+    private int rejected;
+
+    private List<BookingBatchItemResponse> items;
+}
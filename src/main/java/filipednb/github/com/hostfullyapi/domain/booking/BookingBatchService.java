@@ -0,0 +1,199 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.IntervalTree;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.domain.user.UserService;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static filipednb.github.com.hostfullyapi.utils.DateUtils.validateDateRange;
+
+/**
+ * Creates many bookings in one transaction. Items are grouped by property: each property is locked once,
+ * its existing reservations over the whole batch window are read with a single query, and the items are
+ * checked against them and against each other in memory. Accepted bookings are inserted with Hibernate JDBC
+ * batches (see hibernate.jdbc.batch_size), ids come from the pooled booking sequence.
+ */
+@Service
+public class BookingBatchService {
+
+    private final BookingMapper mapper;
+
+    private final UserService userService;
+
+    private final PropertyService propertyService;
+
+    private final ReservationService reservationService;
+
+    private final BookingRepository bookingRepository;
+
+    private final Validator validator;
+
+    BookingBatchService(final BookingMapper mapper,
+                        final UserService userService,
+                        final PropertyService propertyService,
+                        final ReservationService reservationService,
+                        final BookingRepository bookingRepository,
+                        final Validator validator) {
+        this.mapper = mapper;
+        this.userService = userService;
+        this.propertyService = propertyService;
+        this.reservationService = reservationService;
+        this.bookingRepository = bookingRepository;
+        this.validator = validator;
+    }
+
+    @Transactional
+    public BookingBatchResponse createBookings(final BookingBatchRequest request) {
+        var items = request.getBookings();
+        var results = new BookingBatchItemResponse[items.size()];
+
+        var guests = userService.findAllByIdsAndType(items.stream()
+                .map(BookingRequest::getGuestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()), UserTypeEnum.GUEST);
+
+        // Sorted so concurrent batches lock their properties in the same order
+        var itemsByProperty = new TreeMap<Long, List<Integer>>();
+        for (int i = 0; i < items.size(); i++) {
+            var error = validate(items.get(i));
+            if (error == null && !guests.containsKey(items.get(i).getGuestId())) {
+                error = "Guest not found";
+            }
+
+            if (error != null) {
+                results[i] = new BookingBatchItemResponse(i, BookingBatchItemStatusEnum.INVALID, error, null);
+            } else {
+                itemsByProperty.computeIfAbsent(items.get(i).getPropertyId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        var accepted = new ArrayList<BookingEntity>();
+        var acceptedIndexes = new ArrayList<Integer>();
+
+        for (var entry : itemsByProperty.entrySet()) {
+            var indexes = entry.getValue();
+            var property = propertyService.findLockedEntityById(entry.getKey());
+
+            if (property.isEmpty()) {
+                indexes.forEach(i -> results[i] = new BookingBatchItemResponse(i, BookingBatchItemStatusEnum.INVALID,
+                        "Property not found", null));
+                continue;
+            }
+
+            var from = indexes.stream().map(i -> items.get(i).getCheckInDate()).min(Comparator.naturalOrder()).orElseThrow();
+            var to = indexes.stream().map(i -> items.get(i).getCheckOutDate()).max(Comparator.naturalOrder()).orElseThrow();
+
+            var calendar = new IntervalTree();
+            reservationService.findPeriods(entry.getKey(), from, to).forEach(calendar::insert);
+
+            for (var i : indexes) {
+                var item = items.get(i);
+                // Batch items get negative ids, so a conflict between two of them can be told apart
+                var slot = new ReservationSlot(ReservationKind.BOOKING, -(i + 1L), entry.getKey(),
+                        item.getCheckInDate(), item.getCheckOutDate());
+                var conflict = calendar.findFirstOverlap(slot.getStart(), slot.getEnd(), null);
+
+                if (conflict != null) {
+                    results[i] = new BookingBatchItemResponse(i, BookingBatchItemStatusEnum.CONFLICT, conflictMessage(conflict), null);
+                    continue;
+                }
+
+                calendar.insert(slot);
+
+                var booking = new BookingEntity();
+                booking.setGuest(guests.get(item.getGuestId()));
+                booking.setProperty(property.get());
+                booking.setCheckInDate(item.getCheckInDate());
+                booking.setCheckOutDate(item.getCheckOutDate());
+                accepted.add(booking);
+                acceptedIndexes.add(i);
+            }
+        }
+
+        var rejected = items.size() - accepted.size();
+
+        if (request.getMode() == BookingBatchModeEnum.ALL_OR_NOTHING && rejected > 0) {
+            acceptedIndexes.forEach(i -> results[i] = new BookingBatchItemResponse(i, BookingBatchItemStatusEnum.ABORTED,
+                    "Not created, another item of the batch failed", null));
+            return toResponse(request.getMode(), 0, rejected, results);
+        }
+
+        bookingRepository.saveAllAndFlush(accepted);
+
+        for (int n = 0; n < accepted.size(); n++) {
+            var booking = accepted.get(n);
+            int i = acceptedIndexes.get(n);
+
+            try {
+                reservationService.register(ReservationSlot.of(booking));
+            } catch (DataIntegrityViolationException e) {
+                throw new PropertyBusyException("A concurrent reservation took one of the requested periods, please retry the batch");
+            }
+            results[i] = new BookingBatchItemResponse(i, BookingBatchItemStatusEnum.CREATED, null, mapper.toResponse(booking));
+        }
+
+        return toResponse(request.getMode(), accepted.size(), rejected, results);
+    }
+
+    private String validate(final BookingRequest item) {
+        if (item == null) {
+            return "Booking is mandatory";
+        }
+
+        var violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        try {
+            validateDateRange(item.getCheckInDate(), item.getCheckOutDate(), 24);
+        } catch (InvalidDateRangeException e) {
+            return e.getMessage();
+        }
+
+        return null;
+    }
+
+    private static String conflictMessage(final ReservationSlot conflict) {
+        if (conflict.getId() < 0) {
+            return "Overlaps item " + (-conflict.getId() - 1) + " of the same batch";
+        }
+
+        return conflict.getKind() == ReservationKind.BOOKING
+                ? "The location is already booked at the given date"
+                : "The property was blocked by the owner in the same period";
+    }
+
+    private static BookingBatchResponse toResponse(final BookingBatchModeEnum mode,
+                                                   final int created,
+                                                   final int rejected,
+                                                   final BookingBatchItemResponse[] results) {
+        var response = new BookingBatchResponse();
+        response.setMode(mode);
+        response.setCreated(created);
+        response.setRejected(rejected);
+        response.setItems(Arrays.asList(results));
+
+        return response;
+    }
+}
@@ -0,0 +1,20 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BookingCancellationResponse {
+
+    private Long propertyId;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private int cancelled;
+
+    private List<Long> bookingIds;
+}
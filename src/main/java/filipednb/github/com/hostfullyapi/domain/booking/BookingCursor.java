@@ -0,0 +1,42 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import filipednb.github.com.hostfullyapi.exception.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a page of bookings: the (check-in date, id) of the last booking returned. Clients get it
+ * as an opaque URL-safe string.
+ */
+@Value
+class BookingCursor {
+
+    LocalDateTime checkInDate;
+
+    Long id;
+
+    static BookingCursor after(final BookingRow booking) {
+        return new BookingCursor(booking.getCheckInDate(), booking.getId());
+    }
+
+    String encode() {
+        var raw = checkInDate + "|" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BookingCursor decode(final String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separator = raw.indexOf('|');
+
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
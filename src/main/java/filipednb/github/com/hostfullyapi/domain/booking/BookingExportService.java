@@ -0,0 +1,52 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every booking as NDJSON (one BookingResponse per line) while it is read from a database cursor.
+ * Rows are projections that are not kept once written, so memory use doesn't depend on the table size.
+ */
+@Service
+public class BookingExportService {
+
+    private final BookingSearchRepository searchRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int fetchSize;
+
+    BookingExportService(final BookingSearchRepository searchRepository,
+                         final ObjectMapper objectMapper,
+                         @Value("${hostfully.booking-export.fetch-size:500}") final int fetchSize) {
+        this.searchRepository = searchRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(final OutputStream out) throws IOException {
+        try (var generator = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+             var bookings = searchRepository.streamAll(fetchSize)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+            var iterator = bookings.iterator();
+            var written = 0;
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next().toResponse());
+                generator.writeRaw('\n');
+
+                if (++written % fetchSize == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A list of bookings, {@link BookingResponse} or {@link BookingSummaryResponse} items depending on the view.
+ */
+@Data
+public class BookingPageResponse<T> {
+
+    private List<T> items;
+
+    /**
+     * Properties and users referenced by the items, only in the INCLUDED view.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private IncludedResponse included;
+
+    /**
+     * Cursor of the following page, null on the last one.
+     */
+    private String nextCursor;
+}
@@ -2,8 +2,13 @@ package filipednb.github.com.hostfullyapi.domain.booking;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationPeriodView;
+import filipednb.github.com.hostfullyapi.utils.CollectionVersion;
+import filipednb.github.com.hostfullyapi.utils.ItemVersion;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,12 +16,72 @@ import org.springframework.data.jpa.repository.Query;
 
 public interface BookingRepository extends JpaRepository<BookingEntity, Long> {
 
+    /**
+     * Guest, property and owner are lazy; every booking response needs them, so they are joined here
+     * instead of being loaded one row at a time.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"guest", "property", "property.owner"})
+    List<BookingEntity> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"guest", "property", "property.owner"})
+    Optional<BookingEntity> findById(Long id);
+
+    @Query(BookingRow.SELECT)
+    List<BookingRow> findAllRows();
+
+    @Query(BookingRow.SELECT + "WHERE b.id = :id")
+    Optional<BookingRow> findRowById(Long id);
+
+    /**
+     * Validators of GET /bookings/{id}: the booking, its guest, its property and the property owner.
+     */
+    @Query("SELECT new filipednb.github.com.hostfullyapi.utils.ItemVersion(b.version, g.version + p.version + o.version, "
+            + "greatest(b.updatedAt, coalesce(g.updatedAt, b.updatedAt), coalesce(p.updatedAt, b.updatedAt), "
+            + "coalesce(o.updatedAt, b.updatedAt))) "
+            + "FROM BookingEntity b JOIN b.guest g JOIN b.property p JOIN p.owner o WHERE b.id = :id")
+    Optional<ItemVersion> findVersionById(Long id);
+
+    /**
+     * Validators of the unpaginated booking list: one aggregate over the table.
+     */
+    @Query("SELECT new filipednb.github.com.hostfullyapi.utils.CollectionVersion(COUNT(b), coalesce(MAX(b.id), 0L), "
+            + "coalesce(SUM(b.version), 0L), coalesce(SUM(g.version + p.version + o.version), 0L)) "
+            + "FROM BookingEntity b JOIN b.guest g JOIN b.property p JOIN p.owner o")
+    CollectionVersion findCollectionVersion();
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT b FROM BookingEntity b WHERE b.property.id = :propertyId "
             + "AND b.status = :status "
             + "AND (b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate)")
     List<BookingEntity> findByPropertyIdDateRangeAndStatus(Long propertyId, LocalDateTime checkInDate, LocalDateTime checkOutDate, BookingStatusEnum status);
 
+    @Query("SELECT b.id AS id, b.checkInDate AS startDate, b.checkOutDate AS endDate FROM BookingEntity b "
+            + "WHERE b.property.id = :propertyId AND b.status = :status")
+    List<ReservationPeriodView> findPeriodsByPropertyIdAndStatus(Long propertyId, BookingStatusEnum status);
+
+    @Query("SELECT b.id AS id, b.checkInDate AS startDate, b.checkOutDate AS endDate FROM BookingEntity b "
+            + "WHERE b.property.id = :propertyId AND b.status = :status "
+            + "AND b.checkInDate < :to AND b.checkOutDate > :from ORDER BY b.checkInDate, b.id")
+    List<ReservationPeriodView> findPeriodsByPropertyIdAndStatusInRange(Long propertyId, BookingStatusEnum status,
+                                                                        LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Set-based status change of the bookings of a property overlapping [from, to). The version is bumped
+     * and updatedAt set like an entity update would, so a concurrent single-booking write fails its optimistic
+     * check and the validators of the booking responses change.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BookingEntity b SET b.status = :newStatus, b.version = b.version + 1, b.updatedAt = local datetime "
+            + "WHERE b.property.id = :propertyId AND b.status = :status "
+            + "AND b.checkInDate < :to AND b.checkOutDate > :from")
+    int updateStatusByPropertyIdInRange(Long propertyId, BookingStatusEnum status, BookingStatusEnum newStatus,
+                                        LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT b.property.id FROM BookingEntity b WHERE b.id = :id")
+    Optional<Long> findPropertyIdById(Long id);
+
     @Modifying
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("UPDATE BookingEntity b SET b.status = :status WHERE b.id = :id")
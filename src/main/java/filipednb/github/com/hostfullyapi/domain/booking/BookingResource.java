@@ -1,17 +1,30 @@
 package filipednb.github.com.hostfullyapi.domain.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.domain.reservation.OptimisticRetryPolicy;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationCommandExecutor;
+import filipednb.github.com.hostfullyapi.idempotency.IdempotencyService;
 import filipednb.github.com.hostfullyapi.logger.Loggable;
+import filipednb.github.com.hostfullyapi.representation.FieldSelection;
+import filipednb.github.com.hostfullyapi.representation.ListViewEnum;
+import filipednb.github.com.hostfullyapi.utils.Revision;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
@@ -24,56 +37,161 @@ public class BookingResource {
 
     private final BookingService service;
 
-    public BookingResource(final BookingService service) {
+    private final ReservationCommandExecutor executor;
+
+    private final IdempotencyService idempotencyService;
+
+    private final BookingBatchService batchService;
+
+    private final OptimisticRetryPolicy retryPolicy;
+
+    private final BookingExportService exportService;
+
+    private final ObjectMapper objectMapper;
+
+    public BookingResource(final BookingService service,
+                           final ReservationCommandExecutor executor,
+                           final IdempotencyService idempotencyService,
+                           final BookingBatchService batchService,
+                           final OptimisticRetryPolicy retryPolicy,
+                           final BookingExportService exportService,
+                           final ObjectMapper objectMapper) {
         this.service = service;
+        this.executor = executor;
+        this.idempotencyService = idempotencyService;
+        this.batchService = batchService;
+        this.retryPolicy = retryPolicy;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Conditional on the page itself: its ETag hashes the rows returned, so a 304 still reads the page but
+     * never aggregates the whole table.
+     */
     @GetMapping
-    public List<BookingResponse> getBookings() {
-        return service.findAll();
+    public ResponseEntity<MappingJacksonValue> getBookings(final BookingSearchRequest search, final WebRequest request) {
+        var page = switch (search.getView()) {
+            case FULL -> service.findPage(search);
+            case IDS -> service.findSummaryPage(search, false);
+            case INCLUDED -> service.findSummaryPage(search, true);
+        };
+
+        var body = FieldSelection.select(page, FieldSelection.BOOKING_ITEMS, itemType(search.getView()), search.getFields());
+        var revision = Revision.ofBody(objectMapper, body);
+        if (revision.isNotModified(request)) {
+            return null;
+        }
+
+        return revision.ok(body);
+    }
+
+    /**
+     * Every booking in a single response, only on explicit request: it loads the whole table. The IDS view
+     * is a plain list too, the INCLUDED one needs a page to carry the included section.
+     */
+    @GetMapping(params = "unpaginated=true")
+    public ResponseEntity<MappingJacksonValue> getAllBookings(
+            final @RequestParam(defaultValue = "FULL") ListViewEnum view,
+            final @RequestParam(required = false) String fields,
+            final WebRequest request) {
+        var revision = service.findCollectionRevision();
+
+        if (revision.isNotModified(request)) {
+            return null;
+        }
+
+        var bookings = switch (view) {
+            case FULL -> service.findAll();
+            case IDS -> service.findAllSummaries(false).getItems();
+            case INCLUDED -> service.findAllSummaries(true);
+        };
+
+        return revision.ok(FieldSelection.select(bookings, FieldSelection.BOOKING_ITEMS, itemType(view), fields));
+    }
+
+    /**
+     * Every booking, one JSON object per line, streamed while it is read.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        StreamingResponseBody body = exportService::export;
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
-    public ResponseEntity<BookingResponse> createBooking(final @RequestBody BookingRequest booking) {
-        var createdBooking = service.createBooking(booking);
-        var location = URI.create("/bookings/" + createdBooking.getId().toString());
+    public ResponseEntity<BookingResponse> createBooking(
+            final @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            final @RequestBody BookingRequest booking) {
+        return idempotencyService.execute("POST /bookings", idempotencyKey, booking, BookingResponse.class, () -> {
+            var createdBooking = executor.execute(booking::getPropertyId, () -> service.createBooking(booking));
+            var location = URI.create("/bookings/" + createdBooking.getId().toString());
+
+            return ResponseEntity.created(location).body(createdBooking);
+        });
+    }
 
-        return ResponseEntity.created(location).body(createdBooking);
+    /**
+     * Bookings of a batch span several properties, so the batch doesn't go through the single-writer lanes,
+     * it takes the property locks itself.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BookingBatchResponse> createBookings(final @Valid @RequestBody BookingBatchRequest request) {
+        return ResponseEntity.ok(retryPolicy.run(() -> batchService.createBookings(request)));
     }
 
+    /**
+     * Answers 304 from the versions of the booking, guest, property and owner, without reading the booking.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<BookingResponse> getBookingById(final @PathVariable Long id) {
-        var booking = service.findById(id);
+    public ResponseEntity<BookingResponse> getBookingById(final @PathVariable Long id, final WebRequest request) {
+        var revision = service.findRevision(id);
 
-        return ResponseEntity.ok(booking);
+        if (revision.isNotModified(request)) {
+            return null;
+        }
+
+        return revision.ok(service.findById(id));
     }
 
+    /**
+     * Runs on the lane of the property the booking is on, like the other writes of an existing booking.
+     */
     @PatchMapping("/{id}")
     public ResponseEntity<BookingResponse> updateBooking(final @Valid @PathVariable Long id, final @Valid @RequestBody BookingRequest updatedBooking) {
-        var response = service.updateBooking(id, updatedBooking);
+        var response = executor.execute(() -> service.findPropertyId(id), () -> service.updateBooking(id, updatedBooking));
 
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{id}/cancel")
     public ResponseEntity<BookingResponse> cancelBooking(final @Valid @PathVariable Long id) {
-        var response = service.cancelBooking(id);
+        var response = executor.execute(() -> service.findPropertyId(id), () -> service.cancelBooking(id));
 
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{id}/rebook")
     public ResponseEntity<BookingResponse> rebookBooking(final @Valid @PathVariable Long id) {
-        var response = service.rebookBooking(id);
+        var response = executor.execute(() -> service.findPropertyId(id), () -> service.rebookBooking(id));
 
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteBooking(final @Valid @PathVariable Long id) {
-        service.deleteBooking(id);
+        executor.execute(() -> service.findPropertyId(id), () -> {
+            service.deleteBooking(id);
+            return null;
+        });
 
         return ResponseEntity.noContent().build();
     }
-}
 
+    private static Class<?> itemType(final ListViewEnum view) {
+        return view == ListViewEnum.FULL ? BookingResponse.class : BookingSummaryResponse.class;
+    }
+}
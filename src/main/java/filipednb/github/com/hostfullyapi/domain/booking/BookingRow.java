@@ -0,0 +1,105 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import filipednb.github.com.hostfullyapi.domain.property.PropertyResponse;
+import filipednb.github.com.hostfullyapi.domain.property.PropertySummaryResponse;
+import filipednb.github.com.hostfullyapi.domain.user.UserResponse;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of the columns a {@link BookingResponse} needs, selected with a constructor expression.
+ * Nothing is put in the persistence context: no entity instances, no dirty-checking snapshots.
+ */
+@Value
+public class BookingRow {
+
+    /**
+     * Select clause for queries over {@code BookingEntity b}, to be followed by a WHERE or ORDER BY.
+     */
+    public static final String SELECT = "SELECT new filipednb.github.com.hostfullyapi.domain.booking.BookingRow("
+            + "b.id, b.checkInDate, b.checkOutDate, b.status, "
+            + "g.id, g.name, g.email, g.type, "
+            + "p.id, p.name, p.location, "
+            + "o.id, o.name, o.email, o.type) "
+            + "FROM BookingEntity b JOIN b.guest g JOIN b.property p JOIN p.owner o ";
+
+    Long id;
+
+    LocalDateTime checkInDate;
+
+    LocalDateTime checkOutDate;
+
+    BookingStatusEnum status;
+
+    Long guestId;
+
+    String guestName;
+
+    String guestEmail;
+
+    UserTypeEnum guestType;
+
+    Long propertyId;
+
+    String propertyName;
+
+    String propertyLocation;
+
+    Long ownerId;
+
+    String ownerName;
+
+    String ownerEmail;
+
+    UserTypeEnum ownerType;
+
+    public BookingResponse toResponse() {
+        var property = new PropertyResponse();
+        property.setId(propertyId);
+        property.setName(propertyName);
+        property.setLocation(propertyLocation);
+        property.setOwner(new UserResponse(ownerId, ownerName, ownerEmail, ownerType));
+
+        var response = new BookingResponse();
+        response.setId(id);
+        response.setGuest(new UserResponse(guestId, guestName, guestEmail, guestType));
+        response.setProperty(property);
+        response.setCheckInDate(checkInDate);
+        response.setCheckOutDate(checkOutDate);
+        response.setStatus(status);
+
+        return response;
+    }
+
+    public BookingSummaryResponse toSummary() {
+        var response = new BookingSummaryResponse();
+        response.setId(id);
+        response.setGuestId(guestId);
+        response.setPropertyId(propertyId);
+        response.setCheckInDate(checkInDate);
+        response.setCheckOutDate(checkOutDate);
+        response.setStatus(status);
+
+        return response;
+    }
+
+    /**
+     * Adds the property, its owner and the guest to the included section, unless they already are.
+     */
+    public void include(final IncludedResponse included) {
+        included.addProperty(propertyId, () -> {
+            var property = new PropertySummaryResponse();
+            property.setId(propertyId);
+            property.setName(propertyName);
+            property.setLocation(propertyLocation);
+            property.setOwnerId(ownerId);
+
+            return property;
+        });
+        included.addUser(guestId, () -> new UserResponse(guestId, guestName, guestEmail, guestType));
+        included.addUser(ownerId, () -> new UserResponse(ownerId, ownerName, ownerEmail, ownerType));
+    }
+}
@@ -0,0 +1,73 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pages of bookings. The query only carries the filters actually given, so each combination can
+ * be served by the matching (filter, check_in_date, id) index, walked from the cursor onwards.
+ * Also streams the whole table for the export.
+ */
+@Repository
+public class BookingSearchRepository {
+
+    private final EntityManager entityManager;
+
+    BookingSearchRepository(final EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    List<BookingRow> findPage(final BookingSearchRequest search, final BookingCursor after, final int limit) {
+        var jpql = new StringBuilder(BookingRow.SELECT + "WHERE 1 = 1");
+        var parameters = new HashMap<String, Object>();
+
+        if (search.getPropertyId() != null) {
+            jpql.append(" AND b.property.id = :propertyId");
+            parameters.put("propertyId", search.getPropertyId());
+        }
+        if (search.getGuestId() != null) {
+            jpql.append(" AND b.guest.id = :guestId");
+            parameters.put("guestId", search.getGuestId());
+        }
+        if (search.getStatus() != null) {
+            jpql.append(" AND b.status = :status");
+            parameters.put("status", search.getStatus());
+        }
+        if (search.getCheckInFrom() != null) {
+            jpql.append(" AND b.checkInDate >= :checkInFrom");
+            parameters.put("checkInFrom", search.getCheckInFrom());
+        }
+        if (search.getCheckInTo() != null) {
+            jpql.append(" AND b.checkInDate < :checkInTo");
+            parameters.put("checkInTo", search.getCheckInTo());
+        }
+        if (after != null) {
+            // The redundant lower bound gives the planner a range to seek to, it can't make one out of the OR
+            jpql.append(" AND b.checkInDate >= :afterDate"
+                    + " AND (b.checkInDate > :afterDate OR (b.checkInDate = :afterDate AND b.id > :afterId))");
+            parameters.put("afterDate", after.getCheckInDate());
+            parameters.put("afterId", after.getId());
+        }
+        jpql.append(" ORDER BY b.checkInDate, b.id");
+
+        var query = entityManager.createQuery(jpql.toString(), BookingRow.class)
+                .setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+
+        return query.getResultList();
+    }
+
+    /**
+     * Every booking in id order, read through a database cursor fetching fetchSize rows at a time.
+     * Rows are projections, nothing piles up in the persistence context. The stream must be closed.
+     */
+    public Stream<BookingRow> streamAll(final int fetchSize) {
+        return entityManager.createQuery(BookingRow.SELECT + "ORDER BY b.id", BookingRow.class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .getResultStream();
+    }
+}
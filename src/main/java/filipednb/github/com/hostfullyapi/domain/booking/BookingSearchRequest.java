@@ -0,0 +1,40 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import filipednb.github.com.hostfullyapi.representation.ListViewEnum;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Query parameters of GET /bookings. All filters are optional; the check-in window is [checkInFrom, checkInTo).
+ */
+@Data
+public class BookingSearchRequest {
+
+    private Long propertyId;
+
+    private Long guestId;
+
+    private BookingStatusEnum status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime checkInFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime checkInTo;
+
+    /**
+     * nextCursor of the previous page, absent for the first one.
+     */
+    private String cursor;
+
+    private int size = 50;
+
+    private ListViewEnum view = ListViewEnum.FULL;
+
+    /**
+     * Comma-separated item fields to write, all of them when absent.
+     */
+    private String fields;
+}
@@ -1,16 +1,29 @@
 package filipednb.github.com.hostfullyapi.domain.booking;
 
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationPeriodView;
 import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.exception.BadRequestException;
 import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
 import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
 import filipednb.github.com.hostfullyapi.domain.user.UserService;
 import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import filipednb.github.com.hostfullyapi.utils.ItemVersion;
+import filipednb.github.com.hostfullyapi.utils.Revision;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 import java.util.stream.Collectors;
 
@@ -19,6 +32,8 @@ import static filipednb.github.com.hostfullyapi.utils.DateUtils.validateDateRang
 @Service
 public class BookingService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final BookingMapper mapper;
 
     private final UserService userService;
@@ -29,16 +44,20 @@ public class BookingService {
 
     private final ReservationService reservationService;
 
+    private final BookingSearchRepository searchRepository;
+
     public BookingService(final BookingMapper mapper,
                           final UserService userService,
                           final PropertyService propertyService,
                           final BookingRepository bookingRepository,
-                          final ReservationService reservationService) {
+                          final ReservationService reservationService,
+                          final BookingSearchRepository searchRepository) {
         this.mapper = mapper;
         this.userService = userService;
         this.propertyService = propertyService;
         this.bookingRepository = bookingRepository;
         this.reservationService = reservationService;
+        this.searchRepository = searchRepository;
     }
 
     @Transactional
@@ -53,13 +72,9 @@ public class BookingService {
         var guest = userService.findByIdAndType(request.getGuestId(), UserTypeEnum.GUEST)
                 .orElseThrow(() -> new ResourceNotFoundException("Guest not found"));
 
-        if (reservationService.existsBookingOnDate(property.getId(), checkInDate, checkOutDate)) {
-            throw new PropertyBusyException("The location is already booked at the given date");
-        }
-
-        if (reservationService.isPropertyBlockedOnDate(property.getId(), checkInDate, checkOutDate)) {
-            throw new PropertyBusyException("The property was blocked by the owner in the same period");
-        }
+        checkAvailability(property, checkInDate, checkOutDate,
+                "The location is already booked at the given date",
+                "The property was blocked by the owner in the same period");
 
         BookingEntity entity = mapper.toEntity(request);
         entity.setGuest(guest);
@@ -68,6 +83,9 @@ public class BookingService {
         entity.setCheckOutDate(checkOutDate);
 
         bookingRepository.save(entity);
+        register(entity,
+                "The location is already booked at the given date",
+                "The property was blocked by the owner in the same period");
 
         return mapper.toResponse(entity);
     }
@@ -78,27 +96,78 @@ public class BookingService {
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
 
         bookingRepository.delete(booking);
+        reservationService.release(ReservationSlot.of(booking));
+    }
+
+    /**
+     * One page of bookings in (check-in date, id) order. One extra row is read to know whether another
+     * page follows.
+     */
+    @Transactional(readOnly = true)
+    public BookingPageResponse<BookingResponse> findPage(final BookingSearchRequest search) {
+        return readPage(search, BookingRow::toResponse, false);
     }
 
+    /**
+     * {@link #findPage} in the IDS view, or the INCLUDED one when included is set.
+     */
+    @Transactional(readOnly = true)
+    public BookingPageResponse<BookingSummaryResponse> findSummaryPage(final BookingSearchRequest search, final boolean included) {
+        return readPage(search, BookingRow::toSummary, included);
+    }
+
+    @Transactional(readOnly = true)
     public List<BookingResponse> findAll() {
-        List<BookingEntity> bookings = bookingRepository.findAll();
-        return bookings
+        return bookingRepository.findAllRows()
                 .stream()
-                .map(mapper::toResponse)
+                .map(BookingRow::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every booking in the IDS view, or the INCLUDED one when included is set, as a single page.
+     */
+    @Transactional(readOnly = true)
+    public BookingPageResponse<BookingSummaryResponse> findAllSummaries(final boolean included) {
+        return toPage(bookingRepository.findAllRows(), BookingRow::toSummary, included);
+    }
+
+    public Long findPropertyId(final Long id) {
+        return bookingRepository.findPropertyIdById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id " + id));
+    }
+
+    /**
+     * Validators of {@link #findById}, read without loading the booking.
+     */
+    @Transactional(readOnly = true)
+    public Revision findRevision(final Long id) {
+        return bookingRepository.findVersionById(id)
+                .map(ItemVersion::toRevision)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
+    }
+
+    /**
+     * Validators of the unpaginated booking list: any booking change, or change of a guest, property or owner
+     * they embed, changes them. It aggregates the whole table, which that list reads anyway.
+     */
+    @Transactional(readOnly = true)
+    public Revision findCollectionRevision() {
+        return bookingRepository.findCollectionVersion().toRevision();
+    }
+
+    @Transactional(readOnly = true)
     public BookingResponse findById(final Long id) throws ResourceNotFoundException {
-        return mapper.toResponse(
-                bookingRepository.findById(id)
-                    .orElseThrow(() -> new ResourceNotFoundException("Booking not found"))
-        );
+        return bookingRepository.findRowById(id)
+                .map(BookingRow::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
     }
 
     @Transactional
     public BookingResponse updateBooking(Long id, BookingRequest bookingRequest) {
         var booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id " + id));
+        var previousSlot = ReservationSlot.of(booking);
         var property = propertyService.findEntityById(bookingRequest.getPropertyId());
         var checkInDate = bookingRequest.getCheckInDate();
         var checkOutDate = bookingRequest.getCheckOutDate();
@@ -109,20 +178,25 @@ public class BookingService {
         var guest = userService.findByIdAndType(bookingRequest.getGuestId(), UserTypeEnum.GUEST)
                 .orElseThrow(() -> new ResourceNotFoundException("Guest not found"));
 
-        if (reservationService.existsBookingOnDate(bookingRequest.getPropertyId(), checkInDate, checkOutDate)) {
-            throw new PropertyBusyException("The location is already booked at the given date");
-        }
-
-        if (reservationService.isPropertyBlockedOnDate(bookingRequest.getPropertyId(), checkInDate, checkOutDate)) {
-            throw new PropertyBusyException("The property was blocked by the owner in the same period");
-        }
+        checkAvailability(property, checkInDate, checkOutDate,
+                "The location is already booked at the given date",
+                "The property was blocked by the owner in the same period");
 
         booking.setProperty(property);
         booking.setGuest(guest);
         booking.setCheckInDate(checkInDate);
         booking.setCheckOutDate(checkOutDate);
 
-        return mapper.toResponse(bookingRepository.save(booking));
+        var response = mapper.toResponse(bookingRepository.save(booking));
+
+        reservationService.release(previousSlot);
+        if (booking.getStatus() == BookingStatusEnum.ACTIVE) {
+            register(booking,
+                    "The location is already booked at the given date",
+                    "The property was blocked by the owner in the same period");
+        }
+
+        return response;
     }
 
     @Transactional
@@ -136,7 +210,48 @@ public class BookingService {
 
         booking.setStatus(BookingStatusEnum.CANCELLED);
 
-        return mapper.toResponse(bookingRepository.save(booking));
+        var response = mapper.toResponse(bookingRepository.save(booking));
+        reservationService.release(ReservationSlot.of(booking));
+
+        return response;
+    }
+
+    /**
+     * Cancels every active booking of the property overlapping [from, to) with a single UPDATE. The ids are
+     * read first, under the property lock, so the affected bookings can be reported and released; an UPDATE
+     * touching a different number of rows means the set changed in between, the whole operation is retried.
+     */
+    @Transactional
+    public BookingCancellationResponse cancelBookings(final Long propertyId, final LocalDateTime from, final LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidDateRangeException("Initial date must be before the end date");
+        }
+
+        propertyService.findEntityById(propertyId);
+
+        var periods = bookingRepository.findPeriodsByPropertyIdAndStatusInRange(propertyId, BookingStatusEnum.ACTIVE, from, to);
+
+        if (!periods.isEmpty()) {
+            var updated = bookingRepository.updateStatusByPropertyIdInRange(propertyId, BookingStatusEnum.ACTIVE,
+                    BookingStatusEnum.CANCELLED, from, to);
+
+            if (updated != periods.size()) {
+                throw new OptimisticLockingFailureException("Bookings of property " + propertyId + " changed during the cancellation");
+            }
+
+            reservationService.releaseAll(periods.stream()
+                    .map(period -> ReservationSlot.of(ReservationKind.BOOKING, propertyId, period))
+                    .toList());
+        }
+
+        var response = new BookingCancellationResponse();
+        response.setPropertyId(propertyId);
+        response.setFrom(from);
+        response.setTo(to);
+        response.setCancelled(periods.size());
+        response.setBookingIds(periods.stream().map(ReservationPeriodView::getId).toList());
+
+        return response;
     }
 
     @Transactional
@@ -151,20 +266,79 @@ public class BookingService {
         userService.findByIdAndType(booking.getGuest().getId(), UserTypeEnum.GUEST)
                 .orElseThrow(() -> new ResourceNotFoundException("Cannot rebook, user not found"));
 
-        if (reservationService.existsBookingOnDate(booking.getProperty().getId(),
-                booking.getCheckInDate(),
-                booking.getCheckOutDate())) {
-            throw new PropertyBusyException("Cannot rebook, the location is already booked at the given date");
+        var property = propertyService.findEntityById(booking.getProperty().getId());
+
+        checkAvailability(property, booking.getCheckInDate(), booking.getCheckOutDate(),
+                "Cannot rebook, the location is already booked at the given date",
+                "Cannot rebook, the property was blocked by the owner in the same period");
+
+        booking.setStatus(BookingStatusEnum.ACTIVE);
+
+        var response = mapper.toResponse(bookingRepository.save(booking));
+        register(booking,
+                "Cannot rebook, the location is already booked at the given date",
+                "Cannot rebook, the property was blocked by the owner in the same period");
+
+        return response;
+    }
+
+    private void checkAvailability(final PropertyEntity property,
+                                   final LocalDateTime checkInDate,
+                                   final LocalDateTime checkOutDate,
+                                   final String bookedMessage,
+                                   final String blockedMessage) {
+        var conflict = reservationService.findConflict(property, checkInDate, checkOutDate, ReservationKind.BOOKING);
+
+        if (conflict.isPresent()) {
+            throw new PropertyBusyException(conflict.get().getKind() == ReservationKind.BOOKING ? bookedMessage : blockedMessage);
         }
+    }
 
-        if (reservationService.isPropertyBlockedOnDate(booking.getProperty().getId(),
-                booking.getCheckInDate(),
-                booking.getCheckOutDate())) {
-            throw new PropertyBusyException("Cannot rebook, the property was blocked by the owner in the same period");
+    /**
+     * Registers the saved booking, turning a night already claimed by another reservation (day claims mode)
+     * into the same error the availability check reports.
+     */
+    private void register(final BookingEntity booking, final String bookedMessage, final String blockedMessage) {
+        var slot = ReservationSlot.of(booking);
+
+        try {
+            reservationService.register(slot);
+        } catch (DataIntegrityViolationException e) {
+            throw new PropertyBusyException(reservationService.findClaimHolder(slot) == ReservationKind.BOOKING
+                    ? bookedMessage : blockedMessage);
         }
+    }
 
-        booking.setStatus(BookingStatusEnum.ACTIVE);
+    private <T> BookingPageResponse<T> readPage(final BookingSearchRequest search,
+                                                final Function<BookingRow, T> toItem,
+                                                final boolean included) {
+        if (search.getSize() < 1 || search.getSize() > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        var after = search.getCursor() != null ? BookingCursor.decode(search.getCursor()) : null;
+        var bookings = searchRepository.findPage(search, after, search.getSize() + 1);
+        var hasNext = bookings.size() > search.getSize();
+        var items = hasNext ? bookings.subList(0, search.getSize()) : bookings;
+
+        var page = toPage(items, toItem, included);
+        page.setNextCursor(hasNext ? BookingCursor.after(items.get(items.size() - 1)).encode() : null);
+
+        return page;
+    }
+
+    private static <T> BookingPageResponse<T> toPage(final List<BookingRow> rows,
+                                                     final Function<BookingRow, T> toItem,
+                                                     final boolean included) {
+        var page = new BookingPageResponse<T>();
+        page.setItems(rows.stream().map(toItem).toList());
+
+        if (included) {
+            var section = new IncludedResponse();
+            rows.forEach(row -> row.include(section));
+            page.setIncluded(section);
+        }
 
-        return mapper.toResponse(bookingRepository.save(booking));
+        return page;
     }
-}
\ No newline at end of file
+}
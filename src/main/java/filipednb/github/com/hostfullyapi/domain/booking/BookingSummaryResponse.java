@@ -0,0 +1,24 @@
+package filipednb.github.com.hostfullyapi.domain.booking;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking in the IDS and INCLUDED list views: the guest and the property are referenced by id.
+ */
+@Data
+public class BookingSummaryResponse {
+
+    private Long id;
+
+    private Long guestId;
+
+    private Long propertyId;
+
+    private LocalDateTime checkInDate;
+
+    private LocalDateTime checkOutDate;
+
+    private BookingStatusEnum status;
+}
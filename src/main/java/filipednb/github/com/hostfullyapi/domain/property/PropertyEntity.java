@@ -2,34 +2,51 @@ package filipednb.github.com.hostfullyapi.domain.property;
 
 import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
 import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.Fetch;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "property")
 @Table(name = "property")
 public class PropertyEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "property_seq")
+    @SequenceGenerator(name = "property_seq", sequenceName = "property_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private UserEntity owner;
 
     @Column(nullable = false)
@@ -37,4 +54,29 @@ public class PropertyEntity {
 
     @Column(nullable = false)
     private String location;
+
+    /**
+     * Last change of the property itself. Reservation writes only bump the version, not this.
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    /**
+     * Incremented by every transaction adding or removing a booking or block of the property, it backs the
+     * ETag of its calendar feed. Only written by {@code ReservationRepository#incrementCalendarVersion} and
+     * only read with {@code PropertyRepository#findCalendarVersionById}: the copy in a cached entity is stale.
+     */
+    @Column(name = "calendar_version", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long calendarVersion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,17 @@
+package filipednb.github.com.hostfullyapi.domain.property;
+
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * GET /properties in the INCLUDED view: the owners are side-loaded once each.
+ */
+@Data
+public class PropertyListResponse {
+
+    private List<PropertySummaryResponse> items;
+
+    private IncludedResponse included;
+}
@@ -0,0 +1,19 @@
+package filipednb.github.com.hostfullyapi.domain.property;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A page of properties ordered by id.
+ */
+@Data
+public class PropertyPageResponse {
+
+    private List<PropertyResponse> items;
+
+    /**
+     * Cursor of the following page (the id of the last item), null on the last one.
+     */
+    private Long nextCursor;
+}
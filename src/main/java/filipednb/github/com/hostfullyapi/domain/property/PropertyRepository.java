@@ -1,15 +1,79 @@
 package filipednb.github.com.hostfullyapi.domain.property;
 
+import filipednb.github.com.hostfullyapi.utils.CollectionVersion;
+import filipednb.github.com.hostfullyapi.utils.ItemVersion;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface PropertyRepository extends JpaRepository<PropertyEntity, Long> {
 
+    /**
+     * The owner is lazy and part of every property response, so reads meant for the API join it.
+     */
     @Override
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "owner")
+    List<PropertyEntity> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "owner")
     Optional<PropertyEntity> findById(Long id);
 
+    @Query(PropertyRow.SELECT)
+    List<PropertyRow> findAllRows();
+
+    @Query(PropertyRow.SELECT + "WHERE p.id = :id")
+    Optional<PropertyRow> findRowById(Long id);
+
+    /**
+     * Validators of GET /properties/{id}: the property and its owner. Null updatedAt only on rows older than
+     * the column, then there's no Last-Modified.
+     */
+    @Query("SELECT new filipednb.github.com.hostfullyapi.utils.ItemVersion(p.version, o.version, "
+            + "greatest(coalesce(p.updatedAt, o.updatedAt), coalesce(o.updatedAt, p.updatedAt))) "
+            + "FROM PropertyEntity p JOIN p.owner o WHERE p.id = :id")
+    Optional<ItemVersion> findVersionById(Long id);
+
+    @Query("SELECT new filipednb.github.com.hostfullyapi.utils.CollectionVersion(COUNT(p), coalesce(MAX(p.id), 0L), "
+            + "coalesce(SUM(p.version), 0L), coalesce(SUM(o.version), 0L)) "
+            + "FROM PropertyEntity p JOIN p.owner o")
+    CollectionVersion findCollectionVersion();
+
+    /**
+     * Locks the property row until the end of the transaction, so reservation writes on the same
+     * property are serialized. Plain reads must use {@link #findById} instead.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PropertyEntity p WHERE p.id = :id")
+    Optional<PropertyEntity> findByIdForUpdate(Long id);
+
+    /**
+     * Optimistic counterpart of {@link #findByIdForUpdate}: nothing is locked, but the property version
+     * is incremented at commit, so two concurrent reservation writes on the same property can't both commit.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM PropertyEntity p WHERE p.id = :id")
+    Optional<PropertyEntity> findByIdForVersionIncrement(Long id);
+
+    @Query("SELECT p.calendarVersion FROM PropertyEntity p WHERE p.id = :id")
+    Optional<Long> findCalendarVersionById(Long id);
+
+    /**
+     * Anti-join on the occupancy read model: properties without any busy interval (active booking or block)
+     * overlapping [from, to). Keyset page on the id: the properties after the given one, up to the limit,
+     * read from the primary key index however deep the page is and without any count query.
+     */
+    @Query(PropertyRow.SELECT + "WHERE (:location IS NULL OR p.location = :location) "
+            + "AND NOT EXISTS (SELECT 1 FROM OccupancyIntervalEntity i WHERE i.propertyId = p.id "
+            + "AND i.startDate < :to AND i.endDate > :from) "
+            + "AND (:after IS NULL OR p.id > :after) "
+            + "ORDER BY p.id")
+    List<PropertyRow> findAvailable(String location, LocalDateTime from, LocalDateTime to, Long after, Limit limit);
 }
@@ -1,19 +1,39 @@
 package filipednb.github.com.hostfullyapi.domain.property;
 
+import filipednb.github.com.hostfullyapi.domain.block.BlockCalendarSyncResponse;
+import filipednb.github.com.hostfullyapi.domain.block.BlockCalendarSyncService;
+import filipednb.github.com.hostfullyapi.domain.block.ICalendarReader;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingCancellationResponse;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingService;
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ICalendarService;
+import filipednb.github.com.hostfullyapi.domain.reservation.PropertyOccupancyResponse;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationCommandExecutor;
 import filipednb.github.com.hostfullyapi.logger.Loggable;
+import filipednb.github.com.hostfullyapi.representation.FieldSelection;
+import filipednb.github.com.hostfullyapi.representation.ListViewEnum;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.net.URI;
-import java.util.List;
+import java.time.LocalDateTime;
 
 @Loggable
 @RestController
@@ -23,22 +43,147 @@ public class PropertyResource {
 
     private final PropertyService service;
 
-    public PropertyResource(final PropertyService service) {
+    private final CalendarService calendarService;
+
+    private final ICalendarService iCalendarService;
+
+    private final BlockCalendarSyncService calendarSyncService;
+
+    private final BookingService bookingService;
+
+    private final ReservationCommandExecutor executor;
+
+    public PropertyResource(final PropertyService service,
+                            final CalendarService calendarService,
+                            final ICalendarService iCalendarService,
+                            final BlockCalendarSyncService calendarSyncService,
+                            final BookingService bookingService,
+                            final ReservationCommandExecutor executor) {
         this.service = service;
+        this.calendarService = calendarService;
+        this.iCalendarService = iCalendarService;
+        this.calendarSyncService = calendarSyncService;
+        this.bookingService = bookingService;
+        this.executor = executor;
     }
 
     @GetMapping
-    public ResponseEntity<List<PropertyResponse>> getAllProperties() {
-        var properties = service.findAll();
+    public ResponseEntity<MappingJacksonValue> getAllProperties(
+            final @RequestParam(defaultValue = "FULL") ListViewEnum view,
+            final @RequestParam(required = false) String fields,
+            final WebRequest request) {
+        var revision = service.findCollectionRevision();
+
+        if (revision.isNotModified(request)) {
+            return null;
+        }
+
+        var properties = switch (view) {
+            case FULL -> service.findAll();
+            case IDS -> service.findAllSummaries();
+            case INCLUDED -> service.findAllIncluded();
+        };
+        var itemType = view == ListViewEnum.FULL ? PropertyResponse.class : PropertySummaryResponse.class;
 
-        return ResponseEntity.ok(properties);
+        return revision.ok(FieldSelection.select(properties, FieldSelection.PROPERTY_ITEMS, itemType, fields));
     }
 
+    @GetMapping("/available")
+    public ResponseEntity<MappingJacksonValue> getAvailableProperties(
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            final @RequestParam(required = false) String location,
+            final @RequestParam(required = false) Long cursor,
+            final @RequestParam(defaultValue = "20") int size,
+            final @RequestParam(required = false) String fields) {
+        var properties = service.findAvailable(from, to, location, cursor, size);
+
+        return ResponseEntity.ok(FieldSelection.select(properties, FieldSelection.PROPERTY_ITEMS, PropertyResponse.class, fields));
+    }
+
+    /**
+     * Answers 304 from the versions of the property and its owner, without reading the property.
+     */
     @GetMapping("/{propertyId}")
-    public ResponseEntity<PropertyResponse> getPropertyById(final @PathVariable Long propertyId) {
-        var property = service.findById(propertyId);
+    public ResponseEntity<PropertyResponse> getPropertyById(final @PathVariable Long propertyId, final WebRequest request) {
+        var revision = service.findRevision(propertyId);
+
+        if (revision.isNotModified(request)) {
+            return null;
+        }
+
+        return revision.ok(service.findById(propertyId));
+    }
+
+    @GetMapping("/{propertyId}/calendar")
+    public ResponseEntity<StreamingResponseBody> getPropertyCalendar(
+            final @PathVariable Long propertyId,
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        calendarService.validate(propertyId, from, to);
+
+        StreamingResponseBody body = out -> calendarService.writeCalendar(propertyId, from, to, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Next free date of the property, read from the occupancy read model.
+     */
+    @GetMapping("/{propertyId}/occupancy")
+    public ResponseEntity<PropertyOccupancyResponse> getPropertyOccupancy(final @PathVariable Long propertyId) {
+        return ResponseEntity.ok(calendarService.findOccupancy(propertyId));
+    }
+
+    /**
+     * Answers 304 without reading any booking nor block when the If-None-Match header holds the current ETag.
+     */
+    @GetMapping(value = "/{propertyId}/calendar.ics", produces = ICalendarService.TEXT_CALENDAR_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPropertyICalendar(final @PathVariable Long propertyId,
+                                                                      final WebRequest request) {
+        var etag = iCalendarService.etag(propertyId);
+
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        StreamingResponseBody body = out -> iCalendarService.writeFeed(propertyId, out);
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.parseMediaType(ICalendarService.TEXT_CALENDAR_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Replaces the upcoming blocks a feed synced on the property with its events, writing only the difference.
+     * Other blocks of the property are kept.
+     */
+    @PutMapping(value = "/{propertyId}/calendar.ics", consumes = ICalendarService.TEXT_CALENDAR_VALUE)
+    public ResponseEntity<BlockCalendarSyncResponse> importPropertyICalendar(
+            final @PathVariable Long propertyId,
+            final @RequestParam(defaultValue = BlockCalendarSyncService.DEFAULT_FEED) String feed,
+            final InputStream body) {
+        var events = ICalendarReader.read(propertyId, body);
+        var result = executor.execute(() -> propertyId, () -> calendarSyncService.sync(propertyId, feed, events));
+
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Cancels all active bookings of the property overlapping [from, to), e.g. when it goes offline.
+     */
+    @PostMapping("/{propertyId}/bookings/cancel")
+    public ResponseEntity<BookingCancellationResponse> cancelPropertyBookings(
+            final @PathVariable Long propertyId,
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            final @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        var result = executor.execute(() -> propertyId, () -> bookingService.cancelBookings(propertyId, from, to));
 
-        return ResponseEntity.ok(property);
+        return ResponseEntity.ok(result);
     }
 
     @PostMapping
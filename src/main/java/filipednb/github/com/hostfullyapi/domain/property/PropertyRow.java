@@ -0,0 +1,62 @@
+package filipednb.github.com.hostfullyapi.domain.property;
+
+import filipednb.github.com.hostfullyapi.domain.user.UserResponse;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import lombok.Value;
+
+/**
+ * Flat projection of the columns a {@link PropertyResponse} needs, selected with a constructor expression
+ * so reads don't instantiate nor track entities.
+ */
+@Value
+public class PropertyRow {
+
+    /**
+     * Select clause for queries over {@code PropertyEntity p}, to be followed by a WHERE or ORDER BY.
+     */
+    public static final String SELECT = "SELECT new filipednb.github.com.hostfullyapi.domain.property.PropertyRow("
+            + "p.id, p.name, p.location, o.id, o.name, o.email, o.type) "
+            + "FROM PropertyEntity p JOIN p.owner o ";
+
+    Long id;
+
+    String name;
+
+    String location;
+
+    Long ownerId;
+
+    String ownerName;
+
+    String ownerEmail;
+
+    UserTypeEnum ownerType;
+
+    public PropertyResponse toResponse() {
+        var response = new PropertyResponse();
+        response.setId(id);
+        response.setName(name);
+        response.setLocation(location);
+        response.setOwner(new UserResponse(ownerId, ownerName, ownerEmail, ownerType));
+
+        return response;
+    }
+
+    public PropertySummaryResponse toSummary() {
+        var response = new PropertySummaryResponse();
+        response.setId(id);
+        response.setName(name);
+        response.setLocation(location);
+        response.setOwnerId(ownerId);
+
+        return response;
+    }
+
+    /**
+     * Adds the owner to the included section, unless it already is.
+     */
+    public void include(final IncludedResponse included) {
+        included.addUser(ownerId, () -> new UserResponse(ownerId, ownerName, ownerEmail, ownerType));
+    }
+}
@@ -1,51 +1,163 @@
 package filipednb.github.com.hostfullyapi.domain.property;
 
+import filipednb.github.com.hostfullyapi.cache.EntityCacheEvictor;
+import filipednb.github.com.hostfullyapi.domain.reservation.LockingModeEnum;
 import filipednb.github.com.hostfullyapi.domain.user.UserService;
 import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.exception.BadRequestException;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import filipednb.github.com.hostfullyapi.representation.IncludedResponse;
+import filipednb.github.com.hostfullyapi.utils.ItemVersion;
+import filipednb.github.com.hostfullyapi.utils.Revision;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class PropertyService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PropertyRepository repository;
 
     private final PropertyMapper mapper;
 
     private final UserService userService;
 
+    private final EntityCacheEvictor cacheEvictor;
+
+    private final LockingModeEnum lockingMode;
+
     PropertyService(final PropertyRepository repository,
                     final PropertyMapper mapper,
-                    final UserService userService) {
+                    final UserService userService,
+                    final EntityCacheEvictor cacheEvictor,
+                    @Value("${hostfully.reservation.locking:PESSIMISTIC}") final LockingModeEnum lockingMode) {
         this.repository = repository;
         this.mapper = mapper;
         this.userService = userService;
+        this.cacheEvictor = cacheEvictor;
+        this.lockingMode = lockingMode;
     }
 
+    @Transactional(readOnly = true)
     public List<PropertyResponse> findAll() {
-        return repository.findAll()
+        return repository.findAllRows()
                 .stream()
-                .map(mapper::toResponse)
+                .map(PropertyRow::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every property in the IDS view.
+     */
+    @Transactional(readOnly = true)
+    public List<PropertySummaryResponse> findAllSummaries() {
+        return repository.findAllRows()
+                .stream()
+                .map(PropertyRow::toSummary)
+                .toList();
+    }
+
+    /**
+     * Every property in the INCLUDED view.
+     */
+    @Transactional(readOnly = true)
+    public PropertyListResponse findAllIncluded() {
+        var rows = repository.findAllRows();
+        var included = new IncludedResponse();
+        rows.forEach(row -> row.include(included));
+
+        var response = new PropertyListResponse();
+        response.setItems(rows.stream().map(PropertyRow::toSummary).toList());
+        response.setIncluded(included);
+
+        return response;
+    }
+
+    /**
+     * Keyset-paged on the id: the page after the given cursor reads from the index, however deep it is.
+     */
+    @Transactional(readOnly = true)
+    public PropertyPageResponse findAvailable(final LocalDateTime from,
+                                              final LocalDateTime to,
+                                              final String location,
+                                              final Long cursor,
+                                              final int size) {
+        if (!from.isBefore(to)) {
+            throw new InvalidDateRangeException("Initial date must be before the end date");
+        }
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        var rows = repository.findAvailable(location, from, to, cursor, Limit.of(size + 1));
+        var hasNext = rows.size() > size;
+        var items = hasNext ? rows.subList(0, size) : rows;
+
+        var page = new PropertyPageResponse();
+        page.setItems(items.stream().map(PropertyRow::toResponse).toList());
+        page.setNextCursor(hasNext ? items.get(items.size() - 1).getId() : null);
+
+        return page;
+    }
+
+    /**
+     * Validators of {@link #findById}, read without loading the property.
+     */
+    @Transactional(readOnly = true)
+    public Revision findRevision(final Long id) {
+        return repository.findVersionById(id)
+                .map(ItemVersion::toRevision)
+                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public Revision findCollectionRevision() {
+        return repository.findCollectionVersion().toRevision();
+    }
+
+    @Transactional(readOnly = true)
     public PropertyResponse findById(@Valid @NotBlank final Long id) {
-        return mapper.toResponse(repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Property not found")));
+        return repository.findRowById(id)
+                .map(PropertyRow::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
     }
 
+    /**
+     * Loads the property for a reservation write. In the default pessimistic mode its row lock is held
+     * until the transaction ends; in optimistic mode its version is bumped at commit instead. Day claims
+     * mode needs neither, the claims table does the serialization.
+     */
     @Transactional
     public PropertyEntity findEntityById(@Valid @NotBlank final Long id) {
-        return repository.findById(id)
+        return findLockedEntityById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
     }
 
+    /**
+     * Same as {@link #findEntityById}, for callers reporting a missing property themselves instead of
+     * failing their transaction.
+     */
+    @Transactional
+    public Optional<PropertyEntity> findLockedEntityById(final Long id) {
+        return switch (lockingMode) {
+            case OPTIMISTIC -> repository.findByIdForVersionIncrement(id);
+            case DAY_CLAIMS -> repository.findById(id);
+            case PESSIMISTIC -> repository.findByIdForUpdate(id);
+        };
+    }
+
     public PropertyResponse create(final @Valid PropertyRequest request) {
         var owner = userService.findByIdAndType(request.getOwnerId(), UserTypeEnum.OWNER)
                 .orElseThrow(() -> new ResourceNotFoundException("Owner not found"));
@@ -67,6 +179,7 @@ public class PropertyService {
         entity.setName(request.getName());
         entity.setLocation(request.getLocation());
         entity.setOwner(owner);
+        cacheEvictor.evict(PropertyEntity.class, id);
 
         return mapper.toResponse(repository.save(entity));
     }
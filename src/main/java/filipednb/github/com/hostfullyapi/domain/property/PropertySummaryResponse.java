@@ -0,0 +1,19 @@
+package filipednb.github.com.hostfullyapi.domain.property;
+
+import lombok.Data;
+
+/**
+ * Property in the IDS and INCLUDED list views, and in the included section of booking lists: the owner
+ * is referenced by id.
+ */
+@Data
+public class PropertySummaryResponse {
+
+    private Long id;
+
+    private String name;
+
+    private String location;
+
+    private Long ownerId;
+}
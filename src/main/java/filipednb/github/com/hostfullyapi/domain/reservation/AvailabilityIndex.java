@@ -0,0 +1,182 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory, per property, calendar of every active booking and block. Depending on
+ * {@code hostfully.reservation.index.strategy} a property is held in an {@link IntervalTree} or in a
+ * day granularity {@link BitsetCalendar}.
+ *
+ * A property is loaded from the database the first time it is checked. After that it is kept in sync by
+ * {@link ReservationService#register(ReservationSlot)} and {@link ReservationService#release(ReservationSlot)},
+ * called from the booking and block services. The index is conservative: new slots are visible right away
+ * (and dropped again if the transaction rolls back) while released slots only leave after commit, so it can
+ * report a conflict a little too early but never miss one. Reservation writes hold the property row lock,
+ * which serializes loads and updates for the same property.
+ *
+ * That only holds in {@link LockingModeEnum#PESSIMISTIC} mode: without the lock a load could read the tables
+ * before a concurrent write commits, and miss its slot for good. The index is turned off in the other modes.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final BookingRepository bookingRepository;
+
+    private final BlockRepository blockRepository;
+
+    private final boolean enabled;
+
+    private final AvailabilityStrategy strategy;
+
+    private final int horizonDays;
+
+    private final Map<Long, PropertyCalendar> calendars = new ConcurrentHashMap<>();
+
+    AvailabilityIndex(final BookingRepository bookingRepository,
+                      final BlockRepository blockRepository,
+                      @Value("${hostfully.reservation.index.enabled:true}") final boolean enabled,
+                      @Value("${hostfully.reservation.index.strategy:INTERVAL_TREE}") final AvailabilityStrategy strategy,
+                      @Value("${hostfully.reservation.index.horizon-days:730}") final int horizonDays,
+                      @Value("${hostfully.reservation.locking:PESSIMISTIC}") final LockingModeEnum lockingMode) {
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+        this.enabled = enabled && lockingMode == LockingModeEnum.PESSIMISTIC;
+        if (enabled && !this.enabled) {
+            LOGGER.info("Availability index turned off, it needs the {} locking mode", LockingModeEnum.PESSIMISTIC);
+        }
+        this.strategy = strategy;
+        this.horizonDays = horizonDays;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Finds the first slot of the given kind (or any kind when null) overlapping [startDate, endDate).
+     */
+    public Optional<ReservationSlot> findOverlap(final Long propertyId,
+                                                 final LocalDateTime startDate,
+                                                 final LocalDateTime endDate,
+                                                 final ReservationKind kind) {
+        var calendar = calendar(propertyId);
+        var from = ReservationSlot.toEpochSecond(startDate);
+        var to = ReservationSlot.toEpochSecond(endDate);
+
+        synchronized (calendar) {
+            return Optional.ofNullable(calendar.findFirstOverlap(from, to, kind));
+        }
+    }
+
+    public void add(final ReservationSlot slot) {
+        insert(slot);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    if (status != STATUS_COMMITTED) {
+                        delete(slot);
+                    }
+                }
+            });
+        }
+    }
+
+    public void remove(final ReservationSlot slot) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(slot);
+                }
+            });
+        } else {
+            delete(slot);
+        }
+    }
+
+    /**
+     * Drops a property so it is reloaded from the database on next access.
+     */
+    public void evict(final Long propertyId) {
+        calendars.remove(propertyId);
+    }
+
+    public void evictAll() {
+        calendars.clear();
+    }
+
+    private void insert(final ReservationSlot slot) {
+        if (slot.getPropertyId() == null) {
+            return;
+        }
+
+        // Properties not loaded yet will read the slot from the database on first access
+        var calendar = calendars.get(slot.getPropertyId());
+        if (calendar != null) {
+            synchronized (calendar) {
+                calendar.insert(slot);
+            }
+        }
+    }
+
+    private void delete(final ReservationSlot slot) {
+        if (slot.getPropertyId() == null) {
+            return;
+        }
+
+        var calendar = calendars.get(slot.getPropertyId());
+        if (calendar != null) {
+            synchronized (calendar) {
+                calendar.remove(slot);
+            }
+        }
+    }
+
+    /**
+     * Loads the property outside the map, computeIfAbsent would hold its bin lock during the queries and
+     * stall other properties of the same bin. Two loads of one property can't race past each other, they
+     * both run under its row lock, and the first one kept wins.
+     */
+    private PropertyCalendar calendar(final Long propertyId) {
+        var calendar = calendars.get(propertyId);
+        if (calendar != null) {
+            return calendar;
+        }
+
+        var loaded = load(propertyId);
+        var existing = calendars.putIfAbsent(propertyId, loaded);
+
+        return existing != null ? existing : loaded;
+    }
+
+    private PropertyCalendar load(final Long propertyId) {
+        PropertyCalendar calendar = strategy == AvailabilityStrategy.BITSET
+                ? new BitsetCalendar(horizonDays)
+                : new IntervalTree();
+
+        bookingRepository.findPeriodsByPropertyIdAndStatus(propertyId, BookingStatusEnum.ACTIVE)
+                .forEach(view -> calendar.insert(ReservationSlot.of(ReservationKind.BOOKING, propertyId, view)));
+
+        blockRepository.findPeriodsByPropertyId(propertyId)
+                .forEach(view -> calendar.insert(ReservationSlot.of(ReservationKind.BLOCK, propertyId, view)));
+
+        return calendar;
+    }
+}
@@ -0,0 +1,6 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+public enum AvailabilityStrategy {
+    INTERVAL_TREE,
+    BITSET
+}
@@ -0,0 +1,175 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+
+import java.util.Arrays;
+
+/**
+ * Day granularity calendar: one bit per day and per kind over a rolling horizon, packed in long words.
+ * A bit is set when any slot touches that day, even for a few hours.
+ *
+ * A range whose days are all clear is free, answered with a handful of word operations. When some day
+ * is set, or the range goes beyond the horizon, the exact slots are checked, so check-out and check-in
+ * on the same day (e.g. 11:00 and 15:00) are still accepted.
+ */
+public class BitsetCalendar implements PropertyCalendar {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final IntervalTree slots = new IntervalTree();
+
+    private final int horizonDays;
+
+    private final long[] bookingDays;
+
+    private final long[] blockDays;
+
+    private long originDay;
+
+    public BitsetCalendar(final int horizonDays) {
+        this.horizonDays = horizonDays;
+        this.bookingDays = new long[(horizonDays + 63) >>> 6];
+        this.blockDays = new long[(horizonDays + 63) >>> 6];
+        this.originDay = yesterday();
+    }
+
+    @Override
+    public void insert(final ReservationSlot slot) {
+        slots.insert(slot);
+        mark(slot);
+    }
+
+    @Override
+    public boolean remove(final ReservationSlot slot) {
+        if (!slots.remove(slot)) {
+            return false;
+        }
+
+        // Other slots may share the first or the last day, so they are marked again after clearing
+        var words = words(slot.getKind());
+        var first = firstDay(slot.getStart());
+        var last = lastDay(slot.getEnd());
+        if (first <= last) {
+            setRange(words, first, last, false);
+            slots.forEachOverlap(dayStart(first), dayStart(last + 1), other -> {
+                if (other.getKind() == slot.getKind()) {
+                    mark(other);
+                }
+            });
+        }
+
+        return true;
+    }
+
+    @Override
+    public ReservationSlot findFirstOverlap(final long from, final long to, final ReservationKind kind) {
+        rollIfNeeded();
+
+        long first = day(from) - originDay;
+        long last = day(to - 1) - originDay;
+
+        if (first >= 0 && first <= last && last < horizonDays && !anySet(kind, (int) first, (int) last)) {
+            return null;
+        }
+
+        // Beyond the horizon or on a busy day, only the exact hours can tell
+        return slots.findFirstOverlap(from, to, kind);
+    }
+
+    private void rollIfNeeded() {
+        var today = yesterday();
+        if (today - originDay <= horizonDays / 2) {
+            return;
+        }
+
+        originDay = today;
+        Arrays.fill(bookingDays, 0L);
+        Arrays.fill(blockDays, 0L);
+        slots.forEachOverlap(dayStart(0), dayStart(horizonDays), this::mark);
+    }
+
+    private void mark(final ReservationSlot slot) {
+        var first = firstDay(slot.getStart());
+        var last = lastDay(slot.getEnd());
+        if (first <= last) {
+            setRange(words(slot.getKind()), first, last, true);
+        }
+    }
+
+    private boolean anySet(final ReservationKind kind, final int first, final int last) {
+        if (kind == null) {
+            return anySet(bookingDays, first, last) || anySet(blockDays, first, last);
+        }
+
+        return anySet(words(kind), first, last);
+    }
+
+    private long[] words(final ReservationKind kind) {
+        return kind == ReservationKind.BOOKING ? bookingDays : blockDays;
+    }
+
+    /**
+     * Horizon offset of the day holding the given instant, clipped to the horizon.
+     */
+    private int firstDay(final long start) {
+        return (int) Math.min(Math.max(day(start) - originDay, 0), horizonDays);
+    }
+
+    /**
+     * Horizon offset of the day holding the last second before the given end, clipped to the horizon.
+     */
+    private int lastDay(final long end) {
+        return (int) Math.max(Math.min(day(end - 1) - originDay, horizonDays - 1), -1);
+    }
+
+    private long dayStart(final long offset) {
+        return (originDay + offset) * SECONDS_PER_DAY;
+    }
+
+    private static long day(final long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    private static long yesterday() {
+        return day(ReservationSlot.toEpochSecond(TimeProvider.now())) - 1;
+    }
+
+    private static boolean anySet(final long[] words, final int first, final int last) {
+        int firstWord = first >>> 6;
+        int lastWord = last >>> 6;
+        long firstMask = -1L << first;
+        long lastMask = -1L >>> (63 - (last & 63));
+
+        if (firstWord == lastWord) {
+            return (words[firstWord] & firstMask & lastMask) != 0;
+        }
+
+        if ((words[firstWord] & firstMask) != 0) {
+            return true;
+        }
+
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+
+        return (words[lastWord] & lastMask) != 0;
+    }
+
+    private static void setRange(final long[] words, final int first, final int last, final boolean value) {
+        int firstWord = first >>> 6;
+        int lastWord = last >>> 6;
+
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+            if (i == firstWord) {
+                mask &= -1L << first;
+            }
+            if (i == lastWord) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            words[i] = value ? words[i] | mask : words[i] & ~mask;
+        }
+    }
+}
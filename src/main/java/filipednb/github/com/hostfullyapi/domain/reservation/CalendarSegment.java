@@ -0,0 +1,15 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class CalendarSegment {
+
+    CalendarStatusEnum status;
+
+    LocalDateTime startDate;
+
+    LocalDateTime endDate;
+}
@@ -0,0 +1,69 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Turns slots ordered by start date into alternating free and busy segments covering [from, to).
+ * Overlapping or touching slots are merged in a single busy segment. Segments are pushed to the
+ * consumer as soon as they are complete, so nothing is accumulated.
+ */
+public class CalendarSegmentMerger {
+
+    private final LocalDateTime to;
+
+    private final Consumer<CalendarSegment> consumer;
+
+    private LocalDateTime cursor;
+
+    private LocalDateTime busyStart;
+
+    private LocalDateTime busyEnd;
+
+    public CalendarSegmentMerger(final LocalDateTime from, final LocalDateTime to, final Consumer<CalendarSegment> consumer) {
+        this.cursor = from;
+        this.to = to;
+        this.consumer = consumer;
+    }
+
+    public void accept(final ReservationSlot slot) {
+        var start = slot.getStartDate().isBefore(cursor) ? cursor : slot.getStartDate();
+        var end = slot.getEndDate().isAfter(to) ? to : slot.getEndDate();
+
+        if (!start.isBefore(end)) {
+            return;
+        }
+
+        if (busyStart == null) {
+            busyStart = start;
+            busyEnd = end;
+        } else if (!start.isAfter(busyEnd)) {
+            busyEnd = end.isAfter(busyEnd) ? end : busyEnd;
+        } else {
+            flushBusy();
+            busyStart = start;
+            busyEnd = end;
+        }
+    }
+
+    public void finish() {
+        if (busyStart != null) {
+            flushBusy();
+        }
+
+        if (cursor.isBefore(to)) {
+            consumer.accept(new CalendarSegment(CalendarStatusEnum.FREE, cursor, to));
+        }
+    }
+
+    private void flushBusy() {
+        if (cursor.isBefore(busyStart)) {
+            consumer.accept(new CalendarSegment(CalendarStatusEnum.FREE, cursor, busyStart));
+        }
+
+        consumer.accept(new CalendarSegment(CalendarStatusEnum.BUSY, busyStart, busyEnd));
+        cursor = busyEnd;
+        busyStart = null;
+        busyEnd = null;
+    }
+}
@@ -0,0 +1,89 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
+import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * Free/busy calendar of a property, built from the intervals of the occupancy read model in a single
+ * ordered pass and written as a JSON array while it is read. The booking and block tables aren't read.
+ */
+@Service
+public class CalendarService {
+
+    private final OccupancyRepository occupancyRepository;
+
+    private final OccupancyProjection occupancyProjection;
+
+    private final PropertyRepository propertyRepository;
+
+    private final ObjectMapper objectMapper;
+
+    CalendarService(final OccupancyRepository occupancyRepository,
+                    final OccupancyProjection occupancyProjection,
+                    final PropertyRepository propertyRepository,
+                    final ObjectMapper objectMapper) {
+        this.occupancyRepository = occupancyRepository;
+        this.occupancyProjection = occupancyProjection;
+        this.propertyRepository = propertyRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Fails fast, before the response is committed, when the calendar can't be produced.
+     */
+    public void validate(final Long propertyId, final LocalDateTime from, final LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidDateRangeException("Initial date must be before the end date");
+        }
+
+        if (!propertyRepository.existsById(propertyId)) {
+            throw new ResourceNotFoundException("Property not found");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeCalendar(final Long propertyId,
+                              final LocalDateTime from,
+                              final LocalDateTime to,
+                              final OutputStream out) throws IOException {
+        try (var generator = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+             var slots = occupancyRepository.streamIntervals(propertyId, from, to)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartArray();
+
+            var merger = new CalendarSegmentMerger(from, to, segment -> write(generator, segment));
+            slots.forEach(merger::accept);
+            merger.finish();
+
+            generator.writeEndArray();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PropertyOccupancyResponse findOccupancy(final Long propertyId) {
+        if (!propertyRepository.existsById(propertyId)) {
+            throw new ResourceNotFoundException("Property not found");
+        }
+
+        return new PropertyOccupancyResponse(propertyId, occupancyProjection.findNextFreeDate(propertyId));
+    }
+
+    private static void write(final JsonGenerator generator, final CalendarSegment segment) {
+        try {
+            generator.writeObject(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
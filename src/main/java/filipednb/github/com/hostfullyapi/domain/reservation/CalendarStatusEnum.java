@@ -0,0 +1,6 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+public enum CalendarStatusEnum {
+    FREE,
+    BUSY
+}
@@ -0,0 +1,215 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.exception.PropertyBlockedException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bumps the calendar version of the properties whose bookings or blocks changed. The update runs once per
+ * property and transaction, right before the commit, so the property row is only write-locked for the
+ * commit itself (which matters in day claims mode, where nothing else locks it).
+ *
+ * Holding that row lock, the reservations added in the transaction are checked once more against the
+ * booking and block tables whenever the check made when they were written could have missed a concurrent
+ * one: with the {@link AvailabilityIndex} enabled (which is only a fast path to reject) and in day claims
+ * mode. A conflict rolls the transaction back with the exception and message the booking or block services
+ * throw for the same conflict found before the write.
+ *
+ * The occupancy read model is written right after: the intervals of the reservations added and removed in
+ * the transaction, then the next free date, which sees every reservation write committed on the property
+ * before. Interval rows are thus only ever written holding the property row lock, in every locking mode,
+ * the same order as {@link OccupancyRebuilder} takes them.
+ */
+@Component
+public class CalendarVersionTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarVersionTracker.class);
+
+    private final ReservationRepository reservationRepository;
+
+    private final OccupancyProjection occupancyProjection;
+
+    private final AvailabilityIndex availabilityIndex;
+
+    private final boolean verifyAtCommit;
+
+    CalendarVersionTracker(final ReservationRepository reservationRepository,
+                           final OccupancyProjection occupancyProjection,
+                           final AvailabilityIndex availabilityIndex,
+                           @Value("${hostfully.reservation.locking:PESSIMISTIC}") final LockingModeEnum lockingMode) {
+        this.reservationRepository = reservationRepository;
+        this.occupancyProjection = occupancyProjection;
+        this.availabilityIndex = availabilityIndex;
+        this.verifyAtCommit = availabilityIndex.isEnabled() || lockingMode == LockingModeEnum.DAY_CLAIMS;
+    }
+
+    /**
+     * A booking or block was saved with the period of the slot.
+     */
+    public void added(final ReservationSlot slot) {
+        var changes = changesOf(slot.getPropertyId());
+        if (changes != null) {
+            changes.added.add(slot);
+            changes.applyUnlessPending(slot.getPropertyId());
+        }
+    }
+
+    /**
+     * A booking or block stopped taking the period of the slot.
+     */
+    public void removed(final ReservationSlot slot) {
+        var changes = changesOf(slot.getPropertyId());
+        if (changes != null) {
+            changes.added.removeIf(added -> Key.of(added).equals(Key.of(slot)));
+            changes.removed.put(Key.of(slot), slot);
+            changes.applyUnlessPending(slot.getPropertyId());
+        }
+    }
+
+    /**
+     * Changes of the property in the current transaction, or changes applied right away without one.
+     */
+    private PropertyChanges changesOf(final Long propertyId) {
+        if (propertyId == null) {
+            return null;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PropertyChanges(false);
+        }
+
+        var pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+
+        return pending.properties.computeIfAbsent(propertyId, id -> new PropertyChanges(true));
+    }
+
+    private void apply(final Long propertyId, final PropertyChanges changes) {
+        reservationRepository.incrementCalendarVersion(propertyId);
+        if (verifyAtCommit) {
+            verify(propertyId, changes);
+        }
+
+        // Removed first, a moved reservation keeps its key
+        if (!changes.removed.isEmpty()) {
+            occupancyProjection.removeAll(new ArrayList<>(changes.removed.values()));
+        }
+        changes.added.forEach(occupancyProjection::add);
+        occupancyProjection.refresh(propertyId);
+    }
+
+    /**
+     * Looks for any active booking or block, other than the ones changed in the transaction, overlapping an
+     * added slot. The added slots are checked against each other in memory: they may not be flushed yet.
+     */
+    private void verify(final Long propertyId, final PropertyChanges changes) {
+        if (changes.added.isEmpty()) {
+            return;
+        }
+
+        var added = new IntervalTree();
+        var from = changes.added.get(0).getStartDate();
+        var to = changes.added.get(0).getEndDate();
+        for (var slot : changes.added) {
+            var overlap = added.findFirstOverlap(slot.getStart(), slot.getEnd(), null);
+            if (overlap != null) {
+                throw conflict(propertyId, slot.getKind(), overlap.getKind());
+            }
+            added.insert(slot);
+            from = slot.getStartDate().isBefore(from) ? slot.getStartDate() : from;
+            to = slot.getEndDate().isAfter(to) ? slot.getEndDate() : to;
+        }
+
+        var changed = new HashSet<>(changes.removed.keySet());
+        changes.added.forEach(slot -> changed.add(Key.of(slot)));
+
+        try (var periods = reservationRepository.streamPeriods(propertyId, from, to)) {
+            var conflict = periods
+                    .filter(period -> !changed.contains(Key.of(period)))
+                    .filter(period -> added.findFirstOverlap(period.getStart(), period.getEnd(), null) != null)
+                    .findFirst();
+            if (conflict.isPresent()) {
+                var period = conflict.get();
+                var write = added.findFirstOverlap(period.getStart(), period.getEnd(), null);
+                throw conflict(propertyId, write.getKind(), period.getKind());
+            }
+        }
+    }
+
+    /**
+     * Whatever let the conflicting reservation through, the index may have missed a write: it is reloaded
+     * from the database on next use.
+     */
+    private RuntimeException conflict(final Long propertyId, final ReservationKind write, final ReservationKind holder) {
+        LOGGER.warn("Rejected a {} overlapping a {} of property {} at commit", write, holder, propertyId);
+        availabilityIndex.evict(propertyId);
+
+        if (write == ReservationKind.BLOCK) {
+            return holder == ReservationKind.BLOCK
+                    ? new PropertyBlockedException("Property is already blocked on this date range")
+                    : new PropertyBusyException("Property is already booked on this date range");
+        }
+
+        return new PropertyBusyException(holder == ReservationKind.BLOCK
+                ? "The property was blocked by the owner in the same period"
+                : "The location is already booked at the given date");
+    }
+
+    private record Key(ReservationKind kind, Long id) {
+
+        static Key of(final ReservationSlot slot) {
+            return new Key(slot.getKind(), slot.getId());
+        }
+    }
+
+    private class PropertyChanges {
+
+        private final boolean pending;
+
+        private final List<ReservationSlot> added = new ArrayList<>();
+
+        private final Map<Key, ReservationSlot> removed = new LinkedHashMap<>();
+
+        PropertyChanges(final boolean pending) {
+            this.pending = pending;
+        }
+
+        void applyUnlessPending(final Long propertyId) {
+            if (!pending) {
+                apply(propertyId, this);
+            }
+        }
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        // Sorted so concurrent transactions update the property rows in the same order
+        private final Map<Long, PropertyChanges> properties = new TreeMap<>();
+
+        @Override
+        public void beforeCommit(final boolean readOnly) {
+            properties.forEach(CalendarVersionTracker.this::apply);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CalendarVersionTracker.this);
+        }
+    }
+}
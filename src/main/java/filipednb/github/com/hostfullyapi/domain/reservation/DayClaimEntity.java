@@ -0,0 +1,44 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * One night of a property held by a booking or a block, written in {@link LockingModeEnum#DAY_CLAIMS} mode.
+ * The unique constraint on (property_id, claim_date) is what rejects double bookings.
+ */
+@Data
+@Entity
+@Table(name = "reservation_day_claim",
+        uniqueConstraints = @UniqueConstraint(name = "uk_day_claim_property_date", columnNames = {"property_id", "claim_date"}),
+        indexes = @Index(name = "idx_day_claim_reservation", columnList = "kind, reservation_id"))
+public class DayClaimEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "property_id", nullable = false)
+    private Long propertyId;
+
+    @Column(name = "claim_date", nullable = false)
+    private LocalDate claimDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReservationKind kind;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+}
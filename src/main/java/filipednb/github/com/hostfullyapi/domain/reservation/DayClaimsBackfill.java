@@ -0,0 +1,121 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites the day claims of the current and upcoming bookings and blocks, one property per transaction.
+ * Claims are only written while {@link LockingModeEnum#DAY_CLAIMS} mode is on, so reservations made in
+ * another mode have none and the ones cancelled meanwhile kept theirs. It runs at startup, before the
+ * application takes requests, when that mode is on.
+ *
+ * Nights shared by two existing reservations can only be claimed once: the first one keeps them and a
+ * warning is logged.
+ */
+@Component
+public class DayClaimsBackfill implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DayClaimsBackfill.class);
+
+    private static final LocalDateTime UNTIL = LocalDate.of(9999, 12, 31).atStartOfDay();
+
+    private final ReservationRepository reservationRepository;
+
+    private final OccupancyRepository occupancyRepository;
+
+    private final TransactionTemplate transaction;
+
+    private final boolean backfillOnStartup;
+
+    DayClaimsBackfill(final ReservationRepository reservationRepository,
+                      final OccupancyRepository occupancyRepository,
+                      final PlatformTransactionManager transactionManager,
+                      @Value("${hostfully.reservation.locking:PESSIMISTIC}") final LockingModeEnum lockingMode,
+                      @Value("${hostfully.reservation.day-claims.backfill-on-startup:true}") final boolean backfillOnStartup) {
+        this.reservationRepository = reservationRepository;
+        this.occupancyRepository = occupancyRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.backfillOnStartup = backfillOnStartup && lockingMode == LockingModeEnum.DAY_CLAIMS;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * Backfills every property. A property failing is logged and skipped, the commit check still guards
+     * its reservations. Returns the number of reservations claimed.
+     */
+    public int backfill() {
+        var started = System.nanoTime();
+        var claimed = 0;
+
+        for (var propertyId : occupancyRepository.findPropertyIds()) {
+            try {
+                claimed += backfill(propertyId);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cannot backfill the day claims of property {}: {}", propertyId, e.getMessage());
+            }
+        }
+
+        LOGGER.info("Backfilled the day claims of {} reservations in {} ms",
+                claimed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        return claimed;
+    }
+
+    /**
+     * Replaces the claims of a single property, write-locked, in its own transaction. Returns the number of
+     * reservations claimed.
+     */
+    public int backfill(final Long propertyId) {
+        var claimed = transaction.execute(status -> {
+            if (!occupancyRepository.lockProperty(propertyId)) {
+                return 0;
+            }
+
+            reservationRepository.deleteClaims(propertyId);
+
+            var from = TimeProvider.now().toLocalDate().atStartOfDay();
+            List<ReservationSlot> slots;
+            try (var periods = reservationRepository.streamPeriods(propertyId, from, UNTIL)) {
+                slots = periods.toList();
+            }
+
+            var days = new HashSet<LocalDate>();
+
+            for (var slot : slots) {
+                var nights = ReservationService.claimedDays(slot);
+                var free = nights.stream().filter(days::add).toList();
+                if (free.size() < nights.size()) {
+                    LOGGER.warn("{} {} of property {} shares nights with another reservation, only its free nights are claimed",
+                            slot.getKind(), slot.getId(), propertyId);
+                }
+                if (!free.isEmpty()) {
+                    reservationRepository.insertClaims(slot, free);
+                }
+            }
+
+            return slots.size();
+        });
+
+        return claimed == null ? 0 : claimed;
+    }
+}
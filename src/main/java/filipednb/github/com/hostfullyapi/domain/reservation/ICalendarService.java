@@ -0,0 +1,113 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * iCalendar (RFC 5545) feed of a property, from today up to the configured horizon. Bookings and blocks
+ * are streamed from the occupancy read model and written as VEVENTs while they are read. Dates are written as
+ * floating local times, the way they are stored.
+ *
+ * The ETag is derived from the property calendar version (see {@link CalendarVersionTracker}) and the
+ * first day of the feed, so polling an unchanged calendar costs a single primary key lookup.
+ */
+@Service
+public class ICalendarService {
+
+    public static final String TEXT_CALENDAR_VALUE = "text/calendar";
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final String CRLF = "\r\n";
+
+    private final OccupancyRepository occupancyRepository;
+
+    private final PropertyRepository propertyRepository;
+
+    private final int horizonDays;
+
+    ICalendarService(final OccupancyRepository occupancyRepository,
+                     final PropertyRepository propertyRepository,
+                     @Value("${hostfully.ical.horizon-days:730}") final int horizonDays) {
+        this.occupancyRepository = occupancyRepository;
+        this.propertyRepository = propertyRepository;
+        this.horizonDays = horizonDays;
+    }
+
+    /**
+     * Weak validator, the DTSTAMP of the events changes on every request.
+     */
+    public String etag(final Long propertyId) {
+        var version = propertyRepository.findCalendarVersionById(propertyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
+
+        return "W/\"" + version + "-" + feedStart().toLocalDate() + "\"";
+    }
+
+    @Transactional(readOnly = true)
+    public void writeFeed(final Long propertyId, final OutputStream out) throws IOException {
+        var from = feedStart();
+        var to = from.plusDays(horizonDays);
+        var stamp = DATE_TIME.format(utcNow()) + "Z";
+
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (var slots = occupancyRepository.streamIntervals(propertyId, from, to)) {
+            writer.write("BEGIN:VCALENDAR" + CRLF
+                    + "VERSION:2.0" + CRLF
+                    + "PRODID:-//Hostfully API//Property " + propertyId + "//EN" + CRLF
+                    + "CALSCALE:GREGORIAN" + CRLF);
+
+            slots.forEach(slot -> writeEvent(writer, slot, stamp));
+
+            writer.write("END:VCALENDAR" + CRLF);
+        }
+        writer.flush();
+    }
+
+    /**
+     * DTSTAMP is the one UTC time of the feed: the server clock, converted from its own zone.
+     */
+    private static LocalDateTime utcNow() {
+        return TimeProvider.now()
+                .atZone(ZoneId.systemDefault())
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .toLocalDateTime();
+    }
+
+    private static void writeEvent(final Writer writer, final ReservationSlot slot, final String stamp) {
+        var booking = slot.getKind() == ReservationKind.BOOKING;
+
+        try {
+            writer.write("BEGIN:VEVENT" + CRLF
+                    + "UID:" + slot.getKind().name().toLowerCase() + "-" + slot.getId() + "@hostfullyapi" + CRLF
+                    + "DTSTAMP:" + stamp + CRLF
+                    + "DTSTART:" + DATE_TIME.format(slot.getStartDate()) + CRLF
+                    + "DTEND:" + DATE_TIME.format(slot.getEndDate()) + CRLF
+                    + "SUMMARY:" + (booking ? "Reserved" : "Blocked") + CRLF
+                    + "TRANSP:OPAQUE" + CRLF
+                    + "END:VEVENT" + CRLF);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LocalDateTime feedStart() {
+        return TimeProvider.now().toLocalDate().atStartOfDay();
+    }
+}
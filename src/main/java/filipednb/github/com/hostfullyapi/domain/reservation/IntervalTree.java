@@ -0,0 +1,212 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import java.util.function.Consumer;
+
+/**
+ * AVL tree of half-open intervals ordered by start, where every node is augmented with the greatest
+ * end of its subtree. It answers "is there anything overlapping [from, to)" in O(log n).
+ *
+ * Not thread safe, callers must synchronize.
+ */
+public class IntervalTree implements PropertyCalendar {
+
+    private Node root;
+
+    private int size;
+
+    private static final class Node {
+        private final ReservationSlot slot;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(final ReservationSlot slot) {
+            this.slot = slot;
+            this.start = slot.getStart();
+            this.end = slot.getEnd();
+            this.maxEnd = end;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void insert(final ReservationSlot slot) {
+        root = insert(root, slot);
+        size++;
+    }
+
+    @Override
+    public boolean remove(final ReservationSlot slot) {
+        int before = size;
+        root = remove(root, slot);
+        return size < before;
+    }
+
+    @Override
+    public ReservationSlot findFirstOverlap(final long from, final long to, final ReservationKind kind) {
+        return findFirstOverlap(root, from, to, kind);
+    }
+
+    /**
+     * Visits, in start order, every slot overlapping [from, to).
+     */
+    public void forEachOverlap(final long from, final long to, final Consumer<ReservationSlot> consumer) {
+        forEachOverlap(root, from, to, consumer);
+    }
+
+    private ReservationSlot findFirstOverlap(final Node node, final long from, final long to, final ReservationKind kind) {
+        if (node == null || node.maxEnd <= from) {
+            return null;
+        }
+
+        var found = findFirstOverlap(node.left, from, to, kind);
+        if (found != null) {
+            return found;
+        }
+
+        if (node.start >= to) {
+            return null;
+        }
+
+        if (node.end > from && (kind == null || node.slot.getKind() == kind)) {
+            return node.slot;
+        }
+
+        return findFirstOverlap(node.right, from, to, kind);
+    }
+
+    private void forEachOverlap(final Node node, final long from, final long to, final Consumer<ReservationSlot> consumer) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+
+        forEachOverlap(node.left, from, to, consumer);
+
+        if (node.start >= to) {
+            return;
+        }
+
+        if (node.end > from) {
+            consumer.accept(node.slot);
+        }
+
+        forEachOverlap(node.right, from, to, consumer);
+    }
+
+    private Node insert(final Node node, final ReservationSlot slot) {
+        if (node == null) {
+            return new Node(slot);
+        }
+
+        if (slot.compareTo(node.slot) < 0) {
+            node.left = insert(node.left, slot);
+        } else {
+            node.right = insert(node.right, slot);
+        }
+
+        return rebalance(node);
+    }
+
+    private Node remove(final Node node, final ReservationSlot slot) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = slot.compareTo(node.slot);
+        if (cmp < 0) {
+            node.left = remove(node.left, slot);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, slot);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            var successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+
+            var replacement = new Node(successor.slot);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+
+        return rebalance(node);
+    }
+
+    private Node removeMin(final Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private Node rebalance(final Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private Node rotateRight(final Node node) {
+        var pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(final Node node) {
+        var pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(final Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(final Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long maxEnd(final Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+}
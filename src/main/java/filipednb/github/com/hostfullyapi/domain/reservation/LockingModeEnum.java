@@ -0,0 +1,17 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+/**
+ * How reservation writes on the same property are serialized.
+ * PESSIMISTIC holds the property row lock for the whole transaction, OPTIMISTIC bumps the property
+ * version instead and lets the losing transaction fail at commit, to be retried by
+ * {@link OptimisticRetryPolicy}. DAY_CLAIMS takes no lock and runs no overlap query: every reservation
+ * inserts one {@link DayClaimEntity} per night and the unique constraint rejects the second writer.
+ * Claims are per night, so two reservations sharing only their edge day (a late check-out and an early
+ * check-in) don't collide on a claim: the check made by the {@link CalendarVersionTracker} at commit
+ * rejects those. {@link DayClaimsBackfill} writes the claims of the existing reservations at startup.
+ */
+public enum LockingModeEnum {
+    PESSIMISTIC,
+    OPTIMISTIC,
+    DAY_CLAIMS
+}
@@ -0,0 +1,47 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Busy interval of the occupancy read model: one row per active booking or block, copied from the write
+ * tables by {@link OccupancyProjection}. Searches and calendars read this table only.
+ */
+@Data
+@Entity
+@Table(name = "property_occupancy_interval",
+        uniqueConstraints = @UniqueConstraint(name = "uk_occupancy_reservation", columnNames = {"kind", "reservation_id"}),
+        indexes = @Index(name = "idx_occupancy_property_dates", columnList = "property_id, start_date, end_date"))
+public class OccupancyIntervalEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "property_id", nullable = false)
+    private Long propertyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReservationKind kind;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime endDate;
+}
@@ -0,0 +1,90 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the occupancy read model in step with the booking and block tables. Intervals and the next free
+ * date are written by the {@link CalendarVersionTracker} right before the commit of the reservation write,
+ * once per property and holding its row lock. {@link OccupancyRebuilder} rebuilds the whole model from the
+ * write tables.
+ */
+@Component
+public class OccupancyProjection {
+
+    private final OccupancyRepository occupancyRepository;
+
+    OccupancyProjection(final OccupancyRepository occupancyRepository) {
+        this.occupancyRepository = occupancyRepository;
+    }
+
+    public void add(final ReservationSlot slot) {
+        if (slot.getPropertyId() != null) {
+            occupancyRepository.insertInterval(slot);
+        }
+    }
+
+    public void remove(final ReservationSlot slot) {
+        occupancyRepository.deleteInterval(slot);
+    }
+
+    public void removeAll(final List<ReservationSlot> slots) {
+        slots.stream()
+                .collect(Collectors.groupingBy(ReservationSlot::getKind,
+                        Collectors.mapping(ReservationSlot::getId, Collectors.toList())))
+                .forEach(occupancyRepository::deleteIntervals);
+    }
+
+    /**
+     * Recomputes and stores the next free date of the property from its intervals.
+     */
+    public void refresh(final Long propertyId) {
+        occupancyRepository.saveNextFreeDate(propertyId, computeNextFreeDate(propertyId, today()));
+    }
+
+    /**
+     * First day, from today, whose night is free. The stored date is still right when it isn't in the past:
+     * the nights between the day it was computed on and that date were all taken and nothing freed them
+     * since, or it would have been recomputed. Otherwise it's computed again from the intervals.
+     */
+    public LocalDate findNextFreeDate(final Long propertyId) {
+        var today = today();
+
+        return occupancyRepository.findNextFreeDate(propertyId)
+                .filter(date -> !date.isBefore(today))
+                .orElseGet(() -> computeNextFreeDate(propertyId, today));
+    }
+
+    /**
+     * Walks the intervals in start date order while they keep the nights taken. Nights follow
+     * {@link ReservationService#claimedDays}: from the start date up to, excluding, the end date.
+     */
+    private LocalDate computeNextFreeDate(final Long propertyId, final LocalDate today) {
+        var free = today;
+
+        try (var slots = occupancyRepository.streamIntervalsEndingAfter(propertyId, today.atStartOfDay())) {
+            for (var slot : (Iterable<ReservationSlot>) slots::iterator) {
+                var firstNight = slot.getStartDate().toLocalDate();
+                if (firstNight.isAfter(free)) {
+                    break;
+                }
+
+                var endDay = slot.getEndDate().toLocalDate();
+                var after = endDay.isAfter(firstNight) ? endDay : firstNight.plusDays(1);
+                if (after.isAfter(free)) {
+                    free = after;
+                }
+            }
+        }
+
+        return free;
+    }
+
+    private static LocalDate today() {
+        return TimeProvider.now().toLocalDate();
+    }
+}
@@ -0,0 +1,143 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the occupancy read model from the booking and block tables, one property per transaction, on a
+ * background thread: at startup (databases that predate the read model, or rows written around the
+ * services) and then at a fixed interval. Each property is write-locked while it is rebuilt, so the
+ * reservation writes running meanwhile are either copied or applied after it, never lost nor doubled.
+ *
+ * While the startup rebuild runs, properties not rebuilt yet may look free to searches and calendars.
+ */
+@Component
+public class OccupancyRebuilder implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OccupancyRebuilder.class);
+
+    private final OccupancyRepository occupancyRepository;
+
+    private final OccupancyProjection occupancyProjection;
+
+    private final TransactionTemplate transaction;
+
+    private final boolean rebuildOnStartup;
+
+    private final Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    OccupancyRebuilder(final OccupancyRepository occupancyRepository,
+                       final OccupancyProjection occupancyProjection,
+                       final PlatformTransactionManager transactionManager,
+                       @Value("${hostfully.reservation.occupancy.rebuild-on-startup:true}") final boolean rebuildOnStartup,
+                       @Value("${hostfully.reservation.occupancy.rebuild-interval:24h}") final Duration interval) {
+        this.occupancyRepository = occupancyRepository;
+        this.occupancyProjection = occupancyProjection;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.interval = interval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        var periodic = !interval.isZero() && !interval.isNegative();
+        if (!rebuildOnStartup && !periodic) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "occupancy-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var initialDelay = rebuildOnStartup ? 0L : interval.toMillis();
+        if (periodic) {
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, initialDelay, interval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            scheduler.execute(this::rebuildQuietly);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Rebuilds every property and drops the rows of properties that are gone. A property failing to rebuild
+     * is logged and skipped. Returns the number of properties rebuilt.
+     */
+    public int rebuild() {
+        var started = System.nanoTime();
+        var rebuilt = 0;
+        var intervals = 0;
+
+        for (var propertyId : occupancyRepository.findPropertyIds()) {
+            try {
+                var copied = rebuild(propertyId);
+                if (copied >= 0) {
+                    rebuilt++;
+                    intervals += copied;
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cannot rebuild the occupancy of property {}: {}", propertyId, e.getMessage());
+            }
+        }
+
+        var orphans = transaction.execute(status -> occupancyRepository.deleteOrphans());
+
+        LOGGER.info("Rebuilt the occupancy of {} properties ({} intervals, {} orphan rows dropped) in {} ms",
+                rebuilt, intervals, orphans, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        return rebuilt;
+    }
+
+    /**
+     * Rebuilds a single property in its own transaction. Returns the number of intervals copied, or -1 when
+     * the property doesn't exist. The property row is locked before any interval row, as reservation writes
+     * do through the {@link CalendarVersionTracker}, so the two can't deadlock.
+     */
+    public int rebuild(final Long propertyId) {
+        var copied = transaction.execute(status -> {
+            if (!occupancyRepository.lockProperty(propertyId)) {
+                return -1;
+            }
+
+            var count = occupancyRepository.replaceIntervals(propertyId);
+            occupancyProjection.refresh(propertyId);
+
+            return count;
+        });
+
+        return copied == null ? -1 : copied;
+    }
+
+    /**
+     * A scheduled task throwing is never run again, the next rebuild must still happen.
+     */
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOGGER.error("Occupancy rebuild failed", e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Statements of the occupancy read model (tables property_occupancy_interval and property_occupancy). Apart
+ * from {@link #replaceIntervals}, which rebuilds it, nothing here reads the booking or block tables.
+ */
+@Repository
+public class OccupancyRepository {
+
+    private static final String INTERVALS_QUERY = "SELECT kind, reservation_id, start_date, end_date "
+            + "FROM property_occupancy_interval WHERE property_id = :propertyId "
+            + "AND start_date < :endDate AND end_date > :startDate "
+            + "ORDER BY start_date, end_date";
+
+    private static final String INTERVALS_ENDING_AFTER_QUERY = "SELECT kind, reservation_id, start_date, end_date "
+            + "FROM property_occupancy_interval WHERE property_id = :propertyId AND end_date > :from "
+            + "ORDER BY start_date, end_date";
+
+    private static final String COPY_INTERVALS = "INSERT INTO property_occupancy_interval "
+            + "(property_id, kind, reservation_id, start_date, end_date) "
+            + "SELECT b.property_id, 'BOOKING', b.id, b.check_in_date, b.check_out_date "
+            + "FROM booking b WHERE b.property_id = :propertyId AND b.status = 'ACTIVE' "
+            + "UNION ALL "
+            + "SELECT k.property_id, 'BLOCK', k.id, k.start_date, k.end_date "
+            + "FROM block k WHERE k.property_id = :propertyId";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final int IDS_PER_DELETE = 200;
+
+    private final EntityManager entityManager;
+
+    OccupancyRepository(final EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Streams, ordered by start date, the busy intervals of the property overlapping [startDate, endDate).
+     * The stream must be closed.
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<ReservationSlot> streamIntervals(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
+        Stream<Object[]> rows = entityManager.createNativeQuery(INTERVALS_QUERY)
+                .setParameter("propertyId", propertyId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .getResultStream();
+
+        return rows.map(row -> toSlot(propertyId, row));
+    }
+
+    /**
+     * Streams, ordered by start date, the busy intervals of the property ending after from. The stream must be closed.
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<ReservationSlot> streamIntervalsEndingAfter(final Long propertyId, final LocalDateTime from) {
+        Stream<Object[]> rows = entityManager.createNativeQuery(INTERVALS_ENDING_AFTER_QUERY)
+                .setParameter("propertyId", propertyId)
+                .setParameter("from", from)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .getResultStream();
+
+        return rows.map(row -> toSlot(propertyId, row));
+    }
+
+    public void insertInterval(final ReservationSlot slot) {
+        intervalStatement("INSERT INTO property_occupancy_interval (property_id, kind, reservation_id, start_date, end_date) "
+                + "VALUES (:propertyId, :kind, :reservationId, :startDate, :endDate)")
+                .setParameter("propertyId", slot.getPropertyId())
+                .setParameter("kind", slot.getKind().name())
+                .setParameter("reservationId", slot.getId())
+                .setParameter("startDate", slot.getStartDate())
+                .setParameter("endDate", slot.getEndDate())
+                .executeUpdate();
+    }
+
+    public void deleteInterval(final ReservationSlot slot) {
+        intervalStatement("DELETE FROM property_occupancy_interval WHERE kind = :kind AND reservation_id = :reservationId")
+                .setParameter("kind", slot.getKind().name())
+                .setParameter("reservationId", slot.getId())
+                .executeUpdate();
+    }
+
+    public void deleteIntervals(final ReservationKind kind, final List<Long> reservationIds) {
+        for (int from = 0; from < reservationIds.size(); from += IDS_PER_DELETE) {
+            intervalStatement("DELETE FROM property_occupancy_interval WHERE kind = :kind AND reservation_id IN (:reservationIds)")
+                    .setParameter("kind", kind.name())
+                    .setParameter("reservationIds", reservationIds.subList(from, Math.min(from + IDS_PER_DELETE, reservationIds.size())))
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * Replaces the intervals of the property by its active bookings and blocks. Returns how many were copied.
+     */
+    public int replaceIntervals(final Long propertyId) {
+        intervalStatement("DELETE FROM property_occupancy_interval WHERE property_id = :propertyId")
+                .setParameter("propertyId", propertyId)
+                .executeUpdate();
+
+        return intervalStatement(COPY_INTERVALS)
+                .setParameter("propertyId", propertyId)
+                .executeUpdate();
+    }
+
+    /**
+     * Drops the read model rows of properties that don't exist anymore. Scans the read model, only the
+     * full rebuild runs it.
+     */
+    public int deleteOrphans() {
+        var intervals = intervalStatement("DELETE FROM property_occupancy_interval o "
+                + "WHERE NOT EXISTS (SELECT 1 FROM property p WHERE p.id = o.property_id)")
+                .executeUpdate();
+        var properties = propertyStatement("DELETE FROM property_occupancy o "
+                + "WHERE NOT EXISTS (SELECT 1 FROM property p WHERE p.id = o.property_id)")
+                .executeUpdate();
+
+        return intervals + properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<LocalDate> findNextFreeDate(final Long propertyId) {
+        List<Object> rows = entityManager.createNativeQuery("SELECT next_free_date FROM property_occupancy WHERE property_id = :propertyId")
+                .setParameter("propertyId", propertyId)
+                .getResultList();
+
+        return rows.stream()
+                .findFirst()
+                .map(value -> value instanceof Date date ? date.toLocalDate() : (LocalDate) value);
+    }
+
+    public void saveNextFreeDate(final Long propertyId, final LocalDate nextFreeDate) {
+        propertyStatement("MERGE INTO property_occupancy (property_id, next_free_date) KEY (property_id) "
+                + "VALUES (:propertyId, :nextFreeDate)")
+                .setParameter("propertyId", propertyId)
+                .setParameter("nextFreeDate", nextFreeDate)
+                .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Long> findPropertyIds() {
+        List<Object> rows = entityManager.createNativeQuery("SELECT id FROM property ORDER BY id").getResultList();
+
+        return rows.stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+    }
+
+    /**
+     * Write-locks the property row until the end of the transaction, like every reservation write does at
+     * the latest when it bumps the calendar version. False when the property doesn't exist.
+     */
+    public boolean lockProperty(final Long propertyId) {
+        return !entityManager.createNativeQuery("SELECT id FROM property WHERE id = :propertyId FOR UPDATE")
+                .setParameter("propertyId", propertyId)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * See {@link ReservationRepository#nativeWrite}.
+     */
+    private NativeQuery<?> intervalStatement(final String sql) {
+        return ReservationRepository.nativeWrite(entityManager, sql, OccupancyIntervalEntity.class);
+    }
+
+    private NativeQuery<?> propertyStatement(final String sql) {
+        return ReservationRepository.nativeWrite(entityManager, sql, PropertyOccupancyEntity.class);
+    }
+
+    private static ReservationSlot toSlot(final Long propertyId, final Object[] row) {
+        return new ReservationSlot(ReservationKind.valueOf(((String) row[0]).trim()),
+                ((Number) row[1]).longValue(),
+                propertyId,
+                toLocalDateTime(row[2]),
+                toLocalDateTime(row[3]));
+    }
+
+    private static LocalDateTime toLocalDateTime(final Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,71 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a reservation command when it lost an optimistic version check, e.g. a concurrent update
+ * of the same booking, or of any reservation on the same property in optimistic locking mode.
+ * The command must open its own transaction so each attempt starts from fresh state; when called
+ * inside an existing transaction the command is run once, the outer caller owns the retry.
+ *
+ * Retries and exhausted attempts are published as the reservation.optimistic.retries and
+ * reservation.optimistic.failures counters.
+ */
+@Component
+public class OptimisticRetryPolicy {
+
+    private static final long BACKOFF_MILLIS = 10;
+
+    private final int maxAttempts;
+
+    private final Counter retries;
+
+    private final Counter failures;
+
+    public OptimisticRetryPolicy(@Value("${hostfully.reservation.retry.max-attempts:3}") final int maxAttempts,
+                                 final MeterRegistry registry) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retries = Counter.builder("reservation.optimistic.retries")
+                .description("Reservation commands re-run after an optimistic lock failure")
+                .register(registry);
+        this.failures = Counter.builder("reservation.optimistic.failures")
+                .description("Reservation commands that failed after all optimistic lock retries")
+                .register(registry);
+    }
+
+    public <T> T run(final Supplier<T> command) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return command.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return command.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    failures.increment();
+                    throw e;
+                }
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(final int attempt) {
+        try {
+            // Jittered so the colliding writers don't meet again on the next attempt
+            Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS * attempt, BACKOFF_MILLIS * (attempt + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
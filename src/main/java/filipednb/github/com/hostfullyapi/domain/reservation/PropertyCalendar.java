@@ -0,0 +1,20 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+/**
+ * Occupancy of a single property, as kept by the {@link AvailabilityIndex}.
+ * Bounds are epoch seconds (see {@link ReservationSlot#toEpochSecond}) and periods are half-open.
+ *
+ * Implementations are not thread safe, callers must synchronize.
+ */
+public interface PropertyCalendar {
+
+    void insert(ReservationSlot slot);
+
+    boolean remove(ReservationSlot slot);
+
+    /**
+     * Returns the first slot of the given kind overlapping [from, to), or null if the range is free.
+     * A null kind matches bookings and blocks.
+     */
+    ReservationSlot findFirstOverlap(long from, long to, ReservationKind kind);
+}
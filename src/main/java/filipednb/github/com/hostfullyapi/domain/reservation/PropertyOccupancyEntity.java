@@ -0,0 +1,27 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Per property part of the occupancy read model: the first day, from the day it was computed on, whose
+ * night is not taken by any {@link OccupancyIntervalEntity}. It stays right as days go by until that day
+ * is reached, see {@link OccupancyProjection#findNextFreeDate}.
+ */
+@Data
+@Entity
+@Table(name = "property_occupancy")
+public class PropertyOccupancyEntity {
+
+    @Id
+    @Column(name = "property_id")
+    private Long propertyId;
+
+    @Column(name = "next_free_date", nullable = false)
+    private LocalDate nextFreeDate;
+}
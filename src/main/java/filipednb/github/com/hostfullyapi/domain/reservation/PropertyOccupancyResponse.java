@@ -0,0 +1,13 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class PropertyOccupancyResponse {
+
+    Long propertyId;
+
+    LocalDate nextFreeDate;
+}
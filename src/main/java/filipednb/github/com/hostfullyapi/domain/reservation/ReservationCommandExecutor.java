@@ -0,0 +1,123 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.exception.ServiceUnavailableException;
+import filipednb.github.com.hostfullyapi.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer mode for reservations. When enabled, booking and block mutations are run on
+ * one of a fixed number of single-threaded lanes picked by property id: commands on the same property
+ * run one after the other, different properties run in parallel. The property row lock taken by the
+ * services is then never contended.
+ *
+ * Each lane has a bounded queue, a full queue is reported to the client as 429 with Retry-After. The
+ * caller waits for its command up to a timeout, then gets a 503 with Retry-After: a command already
+ * running is not interrupted and may still commit, so clients retrying should send an Idempotency-Key.
+ * Commands must open their own transaction (i.e. call a @Transactional service method), since they
+ * don't run on the caller thread. In every mode, commands losing an optimistic version check are
+ * re-run through the {@link OptimisticRetryPolicy}.
+ */
+@Component
+public class ReservationCommandExecutor {
+
+    private static final ThreadLocal<Boolean> ON_LANE = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final OptimisticRetryPolicy retryPolicy;
+
+    private final Duration timeout;
+
+    public ReservationCommandExecutor(@Value("${hostfully.reservation.executor.enabled:false}") final boolean enabled,
+                                      @Value("${hostfully.reservation.executor.lanes:0}") final int lanes,
+                                      @Value("${hostfully.reservation.executor.queue-capacity:256}") final int queueCapacity,
+                                      @Value("${hostfully.reservation.executor.timeout:10s}") final Duration timeout,
+                                      final OptimisticRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        this.timeout = timeout;
+        if (!enabled) {
+            this.lanes = new ThreadPoolExecutor[0];
+            return;
+        }
+
+        var laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            var name = "reservation-lane-" + i;
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        var thread = new Thread(() -> {
+                            ON_LANE.set(Boolean.TRUE);
+                            runnable.run();
+                        }, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    public boolean isEnabled() {
+        return lanes.length > 0;
+    }
+
+    /**
+     * Runs the command on the lane of the given property and waits for its result. The property id is
+     * only resolved when the executor is enabled, so lookups are skipped in the default mode.
+     */
+    public <T> T execute(final Supplier<Long> propertyId, final Supplier<T> command) {
+        if (!isEnabled() || ON_LANE.get() != null) {
+            return retryPolicy.run(command);
+        }
+
+        var key = propertyId.get();
+        var lane = lanes[key == null ? 0 : Math.floorMod(Long.hashCode(key), lanes.length)];
+        Callable<T> task = () -> retryPolicy.run(command);
+
+        Future<T> future;
+        try {
+            future = lane.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many pending reservations for this property, try again later");
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Dropped if still queued, left to finish if already running
+            future.cancel(false);
+            throw new ServiceUnavailableException("The reservation is taking too long, try again later");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the reservation", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (var lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
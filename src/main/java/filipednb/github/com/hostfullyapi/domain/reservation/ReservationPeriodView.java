@@ -0,0 +1,16 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection used to warm up the availability index without hydrating
+ * the whole booking/block graph (property, owner, guest...).
+ */
+public interface ReservationPeriodView {
+
+    Long getId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+}
@@ -0,0 +1,187 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Queries spanning both booking and block tables, so they can be answered in a single round trip.
+ */
+@Repository
+public class ReservationRepository {
+
+    private static final String CONFLICTS_QUERY = "(SELECT 'BOOKING' AS kind, b.id, "
+            + "b.check_in_date AS start_date, b.check_out_date AS end_date "
+            + "FROM booking b WHERE b.property_id = :propertyId AND b.status = 'ACTIVE' "
+            + "AND b.check_in_date < :endDate AND b.check_out_date > :startDate "
+            + "FETCH FIRST 1 ROWS ONLY) "
+            + "UNION ALL "
+            + "(SELECT 'BLOCK' AS kind, k.id, k.start_date, k.end_date "
+            + "FROM block k WHERE k.property_id = :propertyId "
+            + "AND k.start_date < :endDate AND k.end_date > :startDate "
+            + "FETCH FIRST 1 ROWS ONLY)";
+
+    private static final String PERIODS_QUERY = "SELECT kind, id, start_date, end_date FROM ("
+            + "SELECT 'BOOKING' AS kind, b.id, b.check_in_date AS start_date, b.check_out_date AS end_date "
+            + "FROM booking b WHERE b.property_id = :propertyId AND b.status = 'ACTIVE' "
+            + "AND b.check_in_date < :endDate AND b.check_out_date > :startDate "
+            + "UNION ALL "
+            + "SELECT 'BLOCK' AS kind, k.id, k.start_date, k.end_date "
+            + "FROM block k WHERE k.property_id = :propertyId "
+            + "AND k.start_date < :endDate AND k.end_date > :startDate"
+            + ") r ORDER BY start_date, end_date";
+
+    private static final String CLAIM_HOLDER_QUERY = "SELECT c.kind FROM reservation_day_claim c "
+            + "WHERE c.property_id = :propertyId AND c.claim_date >= :firstDay AND c.claim_date <= :lastDay "
+            + "FETCH FIRST 1 ROWS ONLY";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final int CLAIMS_PER_INSERT = 200;
+
+    /**
+     * Query space of the calendar version column. Nothing caches it, so the increments invalidate nothing.
+     */
+    private static final String CALENDAR_VERSION_SPACE = "property_calendar_version";
+
+    private final EntityManager entityManager;
+
+    ReservationRepository(final EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Returns at most one active booking and one block overlapping [startDate, endDate).
+     */
+    @SuppressWarnings("unchecked")
+    public List<ReservationSlot> findConflicts(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
+        List<Object[]> rows = entityManager.createNativeQuery(CONFLICTS_QUERY)
+                .setParameter("propertyId", propertyId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> toSlot(propertyId, row))
+                .toList();
+    }
+
+    /**
+     * Streams, ordered by start date, every active booking and block overlapping [startDate, endDate).
+     * Rows are plain scalars, nothing is kept in the persistence context. The stream must be closed.
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<ReservationSlot> streamPeriods(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
+        Stream<Object[]> rows = entityManager.createNativeQuery(PERIODS_QUERY)
+                .setParameter("propertyId", propertyId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .getResultStream();
+
+        return rows.map(row -> toSlot(propertyId, row));
+    }
+
+    /**
+     * Inserts one claim per day with multi-row statements. A day already claimed on the property fails the
+     * statement with a DataIntegrityViolationException.
+     */
+    public void insertClaims(final ReservationSlot slot, final List<LocalDate> days) {
+        for (int from = 0; from < days.size(); from += CLAIMS_PER_INSERT) {
+            var chunk = days.subList(from, Math.min(from + CLAIMS_PER_INSERT, days.size()));
+            var sql = new StringBuilder("INSERT INTO reservation_day_claim (property_id, claim_date, kind, reservation_id) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(:propertyId, :day").append(i).append(", :kind, :reservationId)");
+            }
+
+            var query = claimStatement(sql.toString())
+                    .setParameter("propertyId", slot.getPropertyId())
+                    .setParameter("kind", slot.getKind().name())
+                    .setParameter("reservationId", slot.getId());
+            for (int i = 0; i < chunk.size(); i++) {
+                query.setParameter("day" + i, chunk.get(i));
+            }
+            query.executeUpdate();
+        }
+    }
+
+    public void incrementCalendarVersion(final Long propertyId) {
+        entityManager.createNativeQuery("UPDATE property SET calendar_version = calendar_version + 1 WHERE id = :propertyId")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(CALENDAR_VERSION_SPACE)
+                .setParameter("propertyId", propertyId)
+                .executeUpdate();
+    }
+
+    public void deleteClaims(final ReservationSlot slot) {
+        claimStatement("DELETE FROM reservation_day_claim WHERE kind = :kind AND reservation_id = :reservationId")
+                .setParameter("kind", slot.getKind().name())
+                .setParameter("reservationId", slot.getId())
+                .executeUpdate();
+    }
+
+    public void deleteClaims(final ReservationKind kind, final List<Long> reservationIds) {
+        for (int from = 0; from < reservationIds.size(); from += CLAIMS_PER_INSERT) {
+            claimStatement("DELETE FROM reservation_day_claim WHERE kind = :kind AND reservation_id IN (:reservationIds)")
+                    .setParameter("kind", kind.name())
+                    .setParameter("reservationIds", reservationIds.subList(from, Math.min(from + CLAIMS_PER_INSERT, reservationIds.size())))
+                    .executeUpdate();
+        }
+    }
+
+    public void deleteClaims(final Long propertyId) {
+        claimStatement("DELETE FROM reservation_day_claim WHERE property_id = :propertyId")
+                .setParameter("propertyId", propertyId)
+                .executeUpdate();
+    }
+
+    /**
+     * Kind of the reservation holding any of the days between firstDay and lastDay, both inclusive.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<ReservationKind> findClaimHolder(final Long propertyId, final LocalDate firstDay, final LocalDate lastDay) {
+        List<Object> rows = entityManager.createNativeQuery(CLAIM_HOLDER_QUERY)
+                .setParameter("propertyId", propertyId)
+                .setParameter("firstDay", firstDay)
+                .setParameter("lastDay", lastDay)
+                .getResultList();
+
+        return rows.stream()
+                .findFirst()
+                .map(kind -> ReservationKind.valueOf(kind.toString().trim()));
+    }
+
+    private NativeQuery<?> claimStatement(final String sql) {
+        return nativeWrite(entityManager, sql, DayClaimEntity.class);
+    }
+
+    /**
+     * Native writes flush every second-level cache region unless they name what they change, the statement
+     * returned only invalidates the region of the given entity. The native writes of {@link OccupancyRepository}
+     * go through it as well.
+     */
+    static NativeQuery<?> nativeWrite(final EntityManager entityManager, final String sql, final Class<?> changed) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(changed);
+    }
+
+    private static ReservationSlot toSlot(final Long propertyId, final Object[] row) {
+        return new ReservationSlot(ReservationKind.valueOf(((String) row[0]).trim()),
+                ((Number) row[1]).longValue(),
+                propertyId,
+                toLocalDateTime(row[2]),
+                toLocalDateTime(row[3]));
+    }
+
+    private static LocalDateTime toLocalDateTime(final Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -1,54 +1,157 @@
 package filipednb.github.com.hostfullyapi.domain.reservation;
 
-import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
-import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
-import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
-import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
-import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * In order to avoid circular dependency and weird behaviors between Booking <---> Block
  * I decided to create this unit, that is in charge to use both repositories at same time.
+ *
+ * Overlap checks are answered by the {@link AvailabilityIndex} when it is enabled, the repositories
+ * are only scanned when it is turned off. In {@link LockingModeEnum#DAY_CLAIMS} mode there is no check
+ * at all: {@link #register} claims the nights of the reservation and the database rejects a double booking.
+ * In both cases the {@link CalendarVersionTracker} checks the new reservations against the database once
+ * more before the commit.
+ *
+ * Every write also goes to the occupancy read model ({@link OccupancyProjection}), which searches and
+ * calendars read instead of the booking and block tables, through the {@link CalendarVersionTracker}.
  */
 @Service
 public class ReservationService {
 
-    private final BookingRepository bookingRepository;
+    static final int MAX_CLAIMED_NIGHTS = 366;
 
-    private final BlockRepository blockRepository;
+    private final ReservationRepository reservationRepository;
 
-    private final PropertyRepository propertyRepository;
+    private final AvailabilityIndex availabilityIndex;
 
-    ReservationService(final BookingRepository bookingRepository,
-                       final BlockRepository blockRepository,
-                       final PropertyRepository propertyRepository) {
-        this.bookingRepository = bookingRepository;
-        this.blockRepository = blockRepository;
-        this.propertyRepository = propertyRepository;
+    private final CalendarVersionTracker calendarVersionTracker;
+
+    private final LockingModeEnum lockingMode;
+
+    ReservationService(final ReservationRepository reservationRepository,
+                       final AvailabilityIndex availabilityIndex,
+                       final CalendarVersionTracker calendarVersionTracker,
+                       @Value("${hostfully.reservation.locking:PESSIMISTIC}") final LockingModeEnum lockingMode) {
+        this.reservationRepository = reservationRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.calendarVersionTracker = calendarVersionTracker;
+        this.lockingMode = lockingMode;
     }
 
+    /**
+     * Checks bookings and blocks at once for a property the caller has already loaded (and locked).
+     * When both kinds overlap the given period, the one of the preferred kind is returned.
+     */
     @Transactional
-    public boolean isPropertyBlockedOnDate(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
-        propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
+    public Optional<ReservationSlot> findConflict(final PropertyEntity property,
+                                                  final LocalDateTime startDate,
+                                                  final LocalDateTime endDate,
+                                                  final ReservationKind preferredKind) {
+        if (lockingMode == LockingModeEnum.DAY_CLAIMS) {
+            return Optional.empty();
+        }
 
-        var blocks = blockRepository.findOneByPropertyIdAndDateRange(propertyId, startDate, endDate);
+        if (availabilityIndex.isEnabled()) {
+            return availabilityIndex.findOverlap(property.getId(), startDate, endDate, preferredKind)
+                    .or(() -> availabilityIndex.findOverlap(property.getId(), startDate, endDate, null));
+        }
 
-        return !blocks.isEmpty();
+        return reservationRepository.findConflicts(property.getId(), startDate, endDate)
+                .stream()
+                .min(Comparator.comparing(slot -> slot.getKind() != preferredKind));
     }
 
-    @Transactional
-    public boolean existsBookingOnDate(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
-        propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
+    /**
+     * Active bookings and blocks of the property overlapping [startDate, endDate), in start date order.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationSlot> findPeriods(final Long propertyId, final LocalDateTime startDate, final LocalDateTime endDate) {
+        try (var periods = reservationRepository.streamPeriods(propertyId, startDate, endDate)) {
+            return periods.toList();
+        }
+    }
+
+    /**
+     * Makes a freshly saved booking or block visible to the following overlap checks and to the occupancy
+     * read model. In day claims mode this throws a DataIntegrityViolationException when one of its nights
+     * is already taken.
+     */
+    public void register(final ReservationSlot slot) {
+        if (lockingMode == LockingModeEnum.DAY_CLAIMS) {
+            reservationRepository.insertClaims(slot, claimedDays(slot));
+        }
+        availabilityIndex.add(slot);
+        calendarVersionTracker.added(slot);
+    }
+
+    /**
+     * Frees the period of a cancelled, deleted or moved booking/block once the transaction commits.
+     */
+    public void release(final ReservationSlot slot) {
+        if (lockingMode == LockingModeEnum.DAY_CLAIMS) {
+            reservationRepository.deleteClaims(slot);
+        }
+        availabilityIndex.remove(slot);
+        calendarVersionTracker.removed(slot);
+    }
+
+    /**
+     * {@link #release} for many reservations at once, with one claims statement per kind in day claims mode.
+     */
+    public void releaseAll(final List<ReservationSlot> slots) {
+        if (lockingMode == LockingModeEnum.DAY_CLAIMS) {
+            slots.stream()
+                    .collect(Collectors.groupingBy(ReservationSlot::getKind,
+                            Collectors.mapping(ReservationSlot::getId, Collectors.toList())))
+                    .forEach(reservationRepository::deleteClaims);
+        }
+        slots.forEach(availabilityIndex::remove);
+        slots.forEach(calendarVersionTracker::removed);
+    }
+
+    /**
+     * Tells which kind of reservation holds the nights a failed {@link #register} call wanted. Runs in its
+     * own transaction, the caller's one is already marked for rollback. Defaults to BOOKING when the
+     * holder can't be seen anymore.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public ReservationKind findClaimHolder(final ReservationSlot slot) {
+        var days = claimedDays(slot);
+
+        return reservationRepository.findClaimHolder(slot.getPropertyId(), days.get(0), days.get(days.size() - 1))
+                .orElse(ReservationKind.BOOKING);
+    }
+
+    /**
+     * Nights covered by the slot: from its start date up to, excluding, its end date, so a check-out and
+     * a check-in on the same day don't collide. A slot starting and ending on the same date claims that date.
+     * Overlapping hours on that shared day are caught by the commit check of {@link CalendarVersionTracker}.
+     *
+     * At most {@value #MAX_CLAIMED_NIGHTS} nights are claimed, so a stay of many years doesn't write a row
+     * per night. The commit check covers the nights after them.
+     */
+    static List<LocalDate> claimedDays(final ReservationSlot slot) {
+        var day = slot.getStartDate().toLocalDate();
+        var end = slot.getEndDate().toLocalDate();
+        var days = new ArrayList<LocalDate>();
 
-        var bookings = bookingRepository.findByPropertyIdDateRangeAndStatus(propertyId,
-                startDate, endDate, BookingStatusEnum.ACTIVE);
+        do {
+            days.add(day);
+            day = day.plusDays(1);
+        } while (day.isBefore(end) && days.size() < MAX_CLAIMED_NIGHTS);
 
-        return !bookings.isEmpty();
+        return days;
     }
-}
\ No newline at end of file
+}
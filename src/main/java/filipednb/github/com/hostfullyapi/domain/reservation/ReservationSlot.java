@@ -0,0 +1,74 @@
+package filipednb.github.com.hostfullyapi.domain.reservation;
+
+import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+
+/**
+ * Immutable snapshot of a period in which a property is taken, either by a booking or by an owner block.
+ * Periods are half-open: [startDate, endDate).
+ */
+@Value
+public class ReservationSlot implements Comparable<ReservationSlot> {
+
+    private static final Comparator<ReservationSlot> ORDER = Comparator
+            .comparingLong(ReservationSlot::getStart)
+            .thenComparingLong(ReservationSlot::getEnd)
+            .thenComparing(ReservationSlot::getKind)
+            .thenComparing(ReservationSlot::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    ReservationKind kind;
+
+    Long id;
+
+    Long propertyId;
+
+    LocalDateTime startDate;
+
+    LocalDateTime endDate;
+
+    public static ReservationSlot of(final BookingEntity booking) {
+        return new ReservationSlot(ReservationKind.BOOKING,
+                booking.getId(),
+                booking.getProperty() != null ? booking.getProperty().getId() : null,
+                booking.getCheckInDate(),
+                booking.getCheckOutDate());
+    }
+
+    public static ReservationSlot of(final BlockEntity block) {
+        return new ReservationSlot(ReservationKind.BLOCK,
+                block.getId(),
+                block.getProperty() != null ? block.getProperty().getId() : null,
+                block.getStartDate(),
+                block.getEndDate());
+    }
+
+    public static ReservationSlot of(final ReservationKind kind, final Long propertyId, final ReservationPeriodView view) {
+        return new ReservationSlot(kind, view.getId(), propertyId, view.getStartDate(), view.getEndDate());
+    }
+
+    /**
+     * Seconds since epoch (UTC) of the start date. Fractions of a second are dropped, no date the API takes
+     * is precise below the second, and any LocalDateTime fits in a long.
+     */
+    public long getStart() {
+        return toEpochSecond(startDate);
+    }
+
+    public long getEnd() {
+        return toEpochSecond(endDate);
+    }
+
+    public static long toEpochSecond(final LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Override
+    public int compareTo(final ReservationSlot other) {
+        return ORDER.compare(this, other);
+    }
+}
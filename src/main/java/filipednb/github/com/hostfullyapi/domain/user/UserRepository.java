@@ -1,14 +1,40 @@
 package filipednb.github.com.hostfullyapi.domain.user;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
+    String SELECT_RESPONSE = "SELECT new filipednb.github.com.hostfullyapi.domain.user.UserResponse("
+            + "u.id, u.name, u.email, u.type) FROM UserEntity u ";
+
+    /**
+     * Read paths select the response directly, no entity is instantiated nor tracked.
+     */
+    @Query(SELECT_RESPONSE)
+    List<UserResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + "WHERE u.id = :id")
+    Optional<UserResponse> findResponseById(Long id);
+
     boolean existsByIdAndType(Long id, UserTypeEnum type);
 
+    /**
+     * Guest and owner lookup of every reservation and property write, its results are cached.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "user-by-id-and-type")
+    })
     Optional<UserEntity> findByIdAndType(Long id, UserTypeEnum type);
 
+    List<UserEntity> findAllByIdInAndType(Collection<Long> ids, UserTypeEnum type);
+
     boolean existsByEmail(String email);
 }
@@ -1,14 +1,19 @@
 package filipednb.github.com.hostfullyapi.domain.user;
 
+import filipednb.github.com.hostfullyapi.cache.EntityCacheEvictor;
 import filipednb.github.com.hostfullyapi.exception.BadRequestException;
 import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,17 +24,19 @@ public class UserService {
 
     private final UserMapper mapper;
 
+    private final EntityCacheEvictor cacheEvictor;
+
     UserService(final UserRepository repository,
-                final UserMapper mapper) {
+                final UserMapper mapper,
+                final EntityCacheEvictor cacheEvictor) {
         this.repository = repository;
         this.mapper = mapper;
+        this.cacheEvictor = cacheEvictor;
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponse> getAll() {
-        return repository.findAll()
-                .stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return repository.findAllResponses();
     }
 
     public Optional<Boolean> existsByIdAndType(final Long id, final UserTypeEnum type) {
@@ -40,11 +47,16 @@ public class UserService {
         return repository.findByIdAndType(id, type);
     }
 
+    public Map<Long, UserEntity> findAllByIdsAndType(final Collection<Long> ids, final UserTypeEnum type) {
+        return repository.findAllByIdInAndType(ids, type)
+                .stream()
+                .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+    }
+
+    @Transactional(readOnly = true)
     public UserResponse findById(final Long id) {
-        UserEntity entity = repository.findById(id)
+        return repository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        return mapper.toResponse(entity);
     }
 
     public UserResponse create(final UserRequest userRequest) {
@@ -71,6 +83,7 @@ public class UserService {
         entity.setName(userRequest.getName());
 
         repository.save(entity);
+        cacheEvictor.evict(UserEntity.class, id);
 
         return mapper.toResponse(entity);
     }
@@ -0,0 +1,7 @@
+package filipednb.github.com.hostfullyapi.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package filipednb.github.com.hostfullyapi.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package filipednb.github.com.hostfullyapi.idempotency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of a request sent with an Idempotency-Key, replayed to the retries of that request. The record
+ * is inserted as pending before the request runs and completed with its response afterwards.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecordEntity {
+
+    /**
+     * Status code of a record whose request is still running (or whose node died while running it).
+     */
+    public static final int PENDING = 0;
+
+    /**
+     * Endpoint and client key, e.g. "POST /bookings 8e0f...".
+     */
+    @Id
+    @Column(name = "record_key", length = 320)
+    private String key;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code", nullable = false)
+    private int statusCode;
+
+    @Column
+    private String location;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    /**
+     * Claim time while pending, then completion time. Records expire a TTL after it.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
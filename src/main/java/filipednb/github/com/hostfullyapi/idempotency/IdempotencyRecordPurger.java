@@ -0,0 +1,82 @@
+package filipednb.github.com.hostfullyapi.idempotency;
+
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the idempotency records older than their TTL, on a background thread at a fixed interval. Expired
+ * records are never replayed, this only keeps the table from growing with every keyed request.
+ */
+@Component
+public class IdempotencyRecordPurger implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyRecordPurger.class);
+
+    private final IdempotencyRecordRepository repository;
+
+    private final Duration ttl;
+
+    private final Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    IdempotencyRecordPurger(final IdempotencyRecordRepository repository,
+                            @Value("${hostfully.idempotency.ttl:24h}") final Duration ttl,
+                            @Value("${hostfully.idempotency.purge-interval:1h}") final Duration interval) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.interval = interval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of records deleted.
+     */
+    public int purge() {
+        var deleted = repository.deleteAllExpired(TimeProvider.now().minus(ttl));
+        LOGGER.info("Purged {} expired idempotency records", deleted);
+
+        return deleted;
+    }
+
+    /**
+     * A scheduled task throwing is never run again, the next purge must still happen.
+     */
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            LOGGER.error("Idempotency record purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package filipednb.github.com.hostfullyapi.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Writes commit on their own, before or after the transaction of the request they belong to.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecordEntity, String> {
+
+    /**
+     * Pending records are left out, so none is ever held in the persistence context while it still changes.
+     */
+    @Query("SELECT r FROM IdempotencyRecordEntity r WHERE r.key = :key AND r.statusCode <> " + IdempotencyRecordEntity.PENDING)
+    Optional<IdempotencyRecordEntity> findCompleted(String key);
+
+    @Query("SELECT r.statusCode FROM IdempotencyRecordEntity r WHERE r.key = :key")
+    Optional<Integer> findStatusCode(String key);
+
+    /**
+     * Claims the key. Fails with a DataIntegrityViolationException when a record already holds it.
+     */
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO IdempotencyRecordEntity (key, requestHash, statusCode, createdAt) "
+            + "VALUES (:key, :requestHash, " + IdempotencyRecordEntity.PENDING + ", :createdAt)")
+    void insertPending(String key, String requestHash, LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecordEntity r SET r.statusCode = :statusCode, r.location = :location, "
+            + "r.responseBody = :responseBody, r.createdAt = :createdAt WHERE r.key = :key")
+    int complete(String key, int statusCode, String location, String responseBody, LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordEntity r WHERE r.key = :key AND r.statusCode = " + IdempotencyRecordEntity.PENDING)
+    int deletePending(String key);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordEntity r WHERE r.key = :key AND r.createdAt < :createdBefore")
+    int deleteExpired(String key, LocalDateTime createdBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordEntity r WHERE r.createdAt < :createdBefore")
+    int deleteAllExpired(LocalDateTime createdBefore);
+}
@@ -0,0 +1,275 @@
+package filipednb.github.com.hostfullyapi.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import filipednb.github.com.hostfullyapi.exception.TooManyRequestsException;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a request already processed with the same Idempotency-Key, so client
+ * retries don't go through the reservation path again.
+ *
+ * The key is claimed in the idempotency_record table, with a pending record committed before the request
+ * runs, so a duplicate sent to another node or after a crash never runs it again. A request arriving while
+ * another one with the same key is running waits for it and gets its response: on the same node through
+ * an in-memory future, otherwise by polling the record. Only successful responses are stored: a failed
+ * request, or one whose response cannot be stored, releases the key and can be retried with it. A node dying mid-request leaves its record pending,
+ * the key is then refused until the record expires.
+ *
+ * Recent records are kept in a bounded LRU cache in front of the table.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration ttl;
+
+    private final Duration waitTimeout;
+
+    private final Map<String, IdempotencyRecordEntity> recent;
+
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecordEntity>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(final IdempotencyRecordRepository repository,
+                              final ObjectMapper objectMapper,
+                              @Value("${hostfully.idempotency.cache-size:10000}") final int cacheSize,
+                              @Value("${hostfully.idempotency.ttl:24h}") final Duration ttl,
+                              @Value("${hostfully.idempotency.wait-timeout:30s}") final Duration waitTimeout) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, IdempotencyRecordEntity> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Runs the action once per (scope, key) and replays its response afterwards. Without a key the
+     * action just runs. Reusing a key with a different request body is rejected.
+     */
+    public <T> ResponseEntity<T> execute(final String scope,
+                                         final String key,
+                                         final Object request,
+                                         final Class<T> responseType,
+                                         final Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessRuleException(HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        var recordKey = scope + " " + key;
+        var requestHash = hash(request);
+
+        var stored = findRecord(recordKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), requestHash, responseType);
+        }
+
+        var future = new CompletableFuture<IdempotencyRecordEntity>();
+        var running = inFlight.putIfAbsent(recordKey, future);
+        if (running != null) {
+            return replay(await(running), requestHash, responseType);
+        }
+
+        try {
+            // Taken by another request since the lookup, possibly on another node: its response is replayed
+            var holder = claim(recordKey, requestHash);
+            if (holder.isPresent()) {
+                future.complete(holder.get());
+                return replay(holder.get(), requestHash, responseType);
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                repository.deletePending(recordKey);
+                throw e;
+            }
+
+            IdempotencyRecordEntity record;
+            try {
+                record = store(recordKey, requestHash, response);
+            } catch (RuntimeException e) {
+                repository.deletePending(recordKey);
+                throw e;
+            }
+            future.complete(record);
+
+            return response;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, future);
+        }
+    }
+
+    private Optional<IdempotencyRecordEntity> findRecord(final String recordKey) {
+        var record = Optional.ofNullable(recent.get(recordKey))
+                .or(() -> repository.findCompleted(recordKey));
+
+        return record.filter(r -> r.getCreatedAt().plus(ttl).isAfter(TimeProvider.now()));
+    }
+
+    /**
+     * Inserts the pending record of the key. When another request holds it, waits for that one and returns
+     * its record, or claims the key again if it failed. An expired record is replaced.
+     */
+    private Optional<IdempotencyRecordEntity> claim(final String recordKey, final String requestHash) {
+        var deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            try {
+                repository.insertPending(recordKey, requestHash, TimeProvider.now());
+                return Optional.empty();
+            } catch (DataIntegrityViolationException e) {
+                if (repository.deleteExpired(recordKey, TimeProvider.now().minus(ttl)) > 0) {
+                    continue;
+                }
+            }
+
+            var holder = awaitCompletion(recordKey, deadline);
+            if (holder.isPresent()) {
+                return holder;
+            }
+        }
+    }
+
+    /**
+     * Polls the record until it is completed (returned) or released (empty).
+     */
+    private Optional<IdempotencyRecordEntity> awaitCompletion(final String recordKey, final long deadline) {
+        while (true) {
+            var status = repository.findStatusCode(recordKey);
+            if (status.isEmpty()) {
+                return Optional.empty();
+            }
+            if (status.get() != IdempotencyRecordEntity.PENDING) {
+                return repository.findCompleted(recordKey);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new TooManyRequestsException("A request with the same " + HEADER + " is still in progress");
+            }
+
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the original request", e);
+            }
+        }
+    }
+
+    private IdempotencyRecordEntity store(final String recordKey, final String requestHash, final ResponseEntity<?> response) {
+        var record = new IdempotencyRecordEntity();
+        record.setKey(recordKey);
+        record.setRequestHash(requestHash);
+        record.setStatusCode(response.getStatusCode().value());
+        record.setResponseBody(toJson(response.getBody()));
+        record.setCreatedAt(TimeProvider.now());
+        Optional.ofNullable(response.getHeaders().getLocation())
+                .map(URI::toString)
+                .ifPresent(record::setLocation);
+
+        repository.complete(recordKey, record.getStatusCode(), record.getLocation(), record.getResponseBody(), record.getCreatedAt());
+        recent.put(recordKey, record);
+
+        return record;
+    }
+
+    private <T> ResponseEntity<T> replay(final IdempotencyRecordEntity record, final String requestHash, final Class<T> responseType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new BusinessRuleException(HEADER + " was already used with a different request");
+        }
+
+        var response = ResponseEntity.status(record.getStatusCode())
+                .header(REPLAYED_HEADER, "true");
+        if (record.getLocation() != null) {
+            response.header(HttpHeaders.LOCATION, record.getLocation());
+        }
+
+        return response.body(fromJson(record.getResponseBody(), responseType));
+    }
+
+    private IdempotencyRecordEntity await(final CompletableFuture<IdempotencyRecordEntity> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TooManyRequestsException("A request with the same " + HEADER + " is still in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+    }
+
+    private String hash(final Object request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the idempotent response", e);
+        }
+    }
+
+    private <T> T fromJson(final String json, final Class<T> type) {
+        try {
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read the stored idempotent response", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package filipednb.github.com.hostfullyapi.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Decides which requests may read from the replica: only GET, HEAD and OPTIONS ones, on the thread of the
+ * request. Anything else (writes, executor lanes, background jobs, bodies streamed after the request
+ * returned) reads the primary, so a read followed by a write never sees replica data.
+ *
+ * Read-your-writes: write responses set a cookie sending the reads of the same client to the primary for
+ * a while, long enough for the replica to catch up.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "hostfully-primary-reads";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private final Duration stickyFor;
+
+    ReadYourWritesFilter(final Duration stickyFor) {
+        this.stickyFor = stickyFor;
+    }
+
+    static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain chain) throws ServletException, IOException {
+        var now = System.currentTimeMillis();
+
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            var cookie = new Cookie(COOKIE, Long.toString(now + stickyFor.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(stickyFor.toSeconds(), 1));
+            response.addCookie(cookie);
+
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (stickyUntil(request) > now) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        REPLICA_ALLOWED.set(true);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            REPLICA_ALLOWED.remove();
+        }
+    }
+
+    private static long stickyUntil(final HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+
+        for (var cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 0;
+    }
+}
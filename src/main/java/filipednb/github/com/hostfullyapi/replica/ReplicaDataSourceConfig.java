@@ -0,0 +1,99 @@
+package filipednb.github.com.hostfullyapi.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read replica routing, on when hostfully.datasource.replica.enabled is set. The application DataSource
+ * becomes a router over two pools: spring.datasource for the primary, hostfully.datasource.replica for
+ * the replica, which is expected to carry the same schema (replication, or a copy for a stand-in).
+ *
+ * Hibernate keeps its connection for the whole session by default, and open session in view makes that
+ * the whole request; here it's released after each transaction so every transaction is routed on its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hostfully.datasource.replica.enabled", havingValue = "true")
+class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    HikariDataSource replicaDataSource(@Value("${hostfully.datasource.replica.url}") final String url,
+                                       @Value("${hostfully.datasource.replica.username:sa}") final String username,
+                                       @Value("${hostfully.datasource.replica.password:}") final String password) {
+        var dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    ReplicationLagMonitor replicationLagMonitor(
+            @Qualifier("primaryDataSource") final DataSource primary,
+            @Qualifier("replicaDataSource") final DataSource replica,
+            @Value("${hostfully.datasource.replica.max-staleness:5s}") final Duration maxStaleness,
+            @Value("${hostfully.datasource.replica.heartbeat-interval:1s}") final Duration interval,
+            final MeterRegistry registry) {
+        return new ReplicationLagMonitor(primary, replica, maxStaleness, interval, registry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") final DataSource primary,
+                          @Qualifier("replicaDataSource") final DataSource replica,
+                          final ReplicationLagMonitor monitor) {
+        var router = new ReplicaRoutingDataSource(monitor);
+        router.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Target.PRIMARY, primary,
+                ReplicaRoutingDataSource.Target.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(router);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${hostfully.datasource.replica.sticky-for:5s}") final Duration stickyFor) {
+        var registration = new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyFor));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return registration;
+    }
+}
@@ -0,0 +1,30 @@
+package filipednb.github.com.hostfullyapi.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks the replica for connections of read-only transactions of requests allowed to read it (see
+ * {@link ReadYourWritesFilter}), as long as the replica isn't too far behind. It sits behind a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for the connection before the read-only
+ * flag is bound, the proxy only gets it at the first statement.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicationLagMonitor monitor;
+
+    ReplicaRoutingDataSource(final ReplicationLagMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        var replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && ReadYourWritesFilter.isReplicaAllowed()
+                && monitor.isReplicaFresh();
+
+        return replica ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,100 @@
+package filipednb.github.com.hostfullyapi.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how far the replica is behind: a heartbeat row is rewritten on the primary at a fixed interval
+ * and read back from the replica, the age of the replicated row is the lag. The replica is only used while
+ * the lag is within the tolerated staleness; when the heartbeat can't be read it's considered stale.
+ *
+ * An H2 stand-in replica doesn't replicate anything, so its heartbeat only moves when it is written there.
+ */
+public class ReplicationLagMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primary;
+
+    private final JdbcTemplate replica;
+
+    private final Duration maxStaleness;
+
+    private final Duration interval;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Duration lag;
+
+    ReplicationLagMonitor(final DataSource primary,
+                          final DataSource replica,
+                          final Duration maxStaleness,
+                          final Duration interval,
+                          final MeterRegistry registry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxStaleness = maxStaleness;
+        this.interval = interval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("replica.lag", this, monitor -> monitor.lag == null ? Double.NaN : monitor.lag.toMillis())
+                .description("Age of the replicated heartbeat, NaN while the replica can't be read")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::beat, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaFresh() {
+        var current = lag;
+
+        return current != null && current.compareTo(maxStaleness) <= 0;
+    }
+
+    /**
+     * Writes a heartbeat on the primary and measures the lag on the replica, one tick of the monitor.
+     */
+    public void beat() {
+        var now = LocalDateTime.now();
+
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = ?", Timestamp.valueOf(now), HEARTBEAT_ID) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (?, ?)", HEARTBEAT_ID, Timestamp.valueOf(now));
+            }
+        } catch (DataAccessException e) {
+            LOGGER.warn("Cannot write the replication heartbeat: {}", e.getMessage());
+        }
+
+        try {
+            var beats = replica.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = ?", Timestamp.class, HEARTBEAT_ID);
+            lag = beats.isEmpty() ? null : Duration.between(beats.get(0).toLocalDateTime(), now);
+        } catch (DataAccessException e) {
+            LOGGER.debug("Cannot read the replication heartbeat: {}", e.getMessage());
+            lag = null;
+        }
+    }
+}
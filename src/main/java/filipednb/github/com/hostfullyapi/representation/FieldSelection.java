@@ -0,0 +1,70 @@
+package filipednb.github.com.hostfullyapi.representation;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields query parameter of the list endpoints: a comma-separated list of the item fields to write.
+ * Item classes get a Jackson filter id through {@link FieldSelectionConfig}; the filter is only restricted
+ * for the response it is set on, so embedded objects and the included section are written in full.
+ */
+public final class FieldSelection {
+
+    public static final String BOOKING_ITEMS = "booking-items";
+
+    public static final String PROPERTY_ITEMS = "property-items";
+
+    /**
+     * Provider of every other response: the item filters write all fields.
+     */
+    static final FilterProvider ALL_FIELDS = new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    private FieldSelection() {
+    }
+
+    /**
+     * Wraps the body so only the given fields of its items are written, all of them when fields is blank.
+     */
+    public static MappingJacksonValue select(final Object body, final String filterId, final Class<?> itemType,
+                                             final String fields) {
+        var value = new MappingJacksonValue(body);
+        if (fields == null || fields.isBlank()) {
+            return value;
+        }
+
+        var known = Arrays.stream(itemType.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .map(Field::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        var selected = parse(fields);
+
+        for (var field : selected) {
+            if (!known.contains(field)) {
+                throw new BusinessRuleException("Unknown field " + field + ", expected some of " + String.join(",", known));
+            }
+        }
+
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(selected))
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+
+        return value;
+    }
+
+    private static Set<String> parse(final String fields) {
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
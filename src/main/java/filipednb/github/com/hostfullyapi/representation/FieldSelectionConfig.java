@@ -0,0 +1,36 @@
+package filipednb.github.com.hostfullyapi.representation;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingResponse;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingSummaryResponse;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyResponse;
+import filipednb.github.com.hostfullyapi.domain.property.PropertySummaryResponse;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts the {@link FieldSelection} filter ids on the list item classes with mix-ins, on the application
+ * ObjectMapper only: the classes themselves stay plain, so other mappers don't need a filter provider.
+ */
+@Configuration
+class FieldSelectionConfig {
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder
+                .filters(FieldSelection.ALL_FIELDS)
+                .mixIn(BookingResponse.class, BookingItems.class)
+                .mixIn(BookingSummaryResponse.class, BookingItems.class)
+                .mixIn(PropertyResponse.class, PropertyItems.class)
+                .mixIn(PropertySummaryResponse.class, PropertyItems.class);
+    }
+
+    @JsonFilter(FieldSelection.BOOKING_ITEMS)
+    private interface BookingItems {
+    }
+
+    @JsonFilter(FieldSelection.PROPERTY_ITEMS)
+    private interface PropertyItems {
+    }
+}
@@ -0,0 +1,38 @@
+package filipednb.github.com.hostfullyapi.representation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import filipednb.github.com.hostfullyapi.domain.property.PropertySummaryResponse;
+import filipednb.github.com.hostfullyapi.domain.user.UserResponse;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Side-loaded properties and users of a list in the INCLUDED view, each written once whatever the number
+ * of items referencing it. Entries are only built the first time their id is seen.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class IncludedResponse {
+
+    private final Map<Long, PropertySummaryResponse> properties = new LinkedHashMap<>();
+
+    private final Map<Long, UserResponse> users = new LinkedHashMap<>();
+
+    public void addProperty(final Long id, final Supplier<PropertySummaryResponse> property) {
+        properties.computeIfAbsent(id, key -> property.get());
+    }
+
+    public void addUser(final Long id, final Supplier<UserResponse> user) {
+        users.computeIfAbsent(id, key -> user.get());
+    }
+
+    public Collection<PropertySummaryResponse> getProperties() {
+        return properties.values();
+    }
+
+    public Collection<UserResponse> getUsers() {
+        return users.values();
+    }
+}
@@ -0,0 +1,22 @@
+package filipednb.github.com.hostfullyapi.representation;
+
+/**
+ * Shape of the items of a list response, chosen with the view query parameter.
+ */
+public enum ListViewEnum {
+
+    /**
+     * Items embed their property, owner and guest, as the single-resource endpoints do.
+     */
+    FULL,
+
+    /**
+     * Items hold the ids of what they reference.
+     */
+    IDS,
+
+    /**
+     * Items hold ids and every referenced property and user is written once in the included section.
+     */
+    INCLUDED
+}
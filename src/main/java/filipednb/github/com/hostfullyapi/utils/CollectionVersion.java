@@ -0,0 +1,26 @@
+package filipednb.github.com.hostfullyapi.utils;
+
+import lombok.Value;
+
+/**
+ * Watermark of a whole table, selected with a constructor expression: row count, highest id and the sums
+ * of the row versions and of the versions of the rows embedded in the responses. An insert moves the
+ * highest id (ids come from sequences), a delete lowers the count and an update grows one of the sums.
+ *
+ * There's no Last-Modified: rows are deleted for good, so no timestamp is left to tell a delete happened.
+ */
+@Value
+public class CollectionVersion {
+
+    Long count;
+
+    Long maxId;
+
+    Long versions;
+
+    Long relatedVersions;
+
+    public Revision toRevision() {
+        return new Revision("\"" + count + "-" + maxId + "-" + versions + "-" + relatedVersions + "\"", null);
+    }
+}
@@ -0,0 +1,27 @@
+package filipednb.github.com.hostfullyapi.utils;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versions of a row and of the rows embedded in its response, selected with a constructor expression.
+ * Changing an association bumps the row version, so the embedded versions can be summed: for a given
+ * set of rows the sum only ever grows.
+ */
+@Value
+public class ItemVersion {
+
+    Long version;
+
+    Long relatedVersions;
+
+    /**
+     * Latest updatedAt of the row and the embedded rows, null when none is known (rows older than the column).
+     */
+    LocalDateTime updatedAt;
+
+    public Revision toRevision() {
+        return new Revision("\"" + version + "-" + relatedVersions + "\"", updatedAt);
+    }
+}
@@ -0,0 +1,67 @@
+package filipednb.github.com.hostfullyapi.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validators of a GET response: a strong ETag built from row versions and, when it is known, the last
+ * modification time. They come from a key lookup or an aggregate over version columns, so a conditional
+ * request is answered before the resource is loaded or mapped. Pages hash their body instead, see
+ * {@link #ofBody}.
+ *
+ * Read them before the body: a write in between can only make the validators older than the body, which
+ * costs the client one more 200 later, never a stale 304.
+ */
+@Value
+public class Revision {
+
+    String etag;
+
+    LocalDateTime lastModified;
+
+    /**
+     * Validators of a response without a cheap watermark: a hash of the body as it will be written, so only
+     * the rows it holds change it. The body is read and serialized once more for it, keep it to bounded
+     * bodies such as a page.
+     */
+    public static Revision ofBody(final ObjectMapper objectMapper, final MappingJacksonValue body) {
+        var writer = body.getFilters() != null ? objectMapper.writer(body.getFilters()) : objectMapper.writer();
+
+        try {
+            return new Revision("\"" + DigestUtils.md5DigestAsHex(writer.writeValueAsBytes(body.getValue())) + "\"", null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the response", e);
+        }
+    }
+
+    /**
+     * Sets the validators on the response and tells whether it can be answered with a 304. If-None-Match
+     * wins over If-Modified-Since when both are sent.
+     */
+    public boolean isNotModified(final WebRequest request) {
+        return lastModified == null
+                ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public <T> ResponseEntity<T> ok(final T body) {
+        var response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache());
+
+        if (lastModified != null) {
+            response.lastModified(lastModified.atZone(ZoneId.systemDefault()));
+        }
+
+        return response.body(body);
+    }
+}
@@ -0,0 +1,5 @@
+-- Overlap checks of bookings and blocks: the equality columns first, then both range bounds, so the
+-- range scan starts at the property (and status) and the second bound is filtered from the index entry.
+CREATE INDEX IF NOT EXISTS idx_booking_property_status_dates ON booking (property_id, status, check_in_date, check_out_date);
+
+CREATE INDEX IF NOT EXISTS idx_block_property_dates ON block (property_id, start_date, end_date);
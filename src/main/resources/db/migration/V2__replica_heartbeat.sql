@@ -0,0 +1,5 @@
+-- Single row rewritten on the primary by ReplicationLagMonitor. Its age on a read replica is the replication lag.
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id      INT       NOT NULL PRIMARY KEY,
+    beat_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Expired idempotency records are purged by creation time, see IdempotencyRecordPurger.
+CREATE INDEX IF NOT EXISTS idx_idempotency_record_created_at ON idempotency_record (created_at);
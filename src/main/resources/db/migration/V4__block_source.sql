@@ -0,0 +1,6 @@
+-- Blocks are tagged with where they come from, existing ones were all created by hand or imported. An
+-- iCalendar sync reads the upcoming blocks of its own feed only, see BlockCalendarSyncService.
+ALTER TABLE block ADD COLUMN IF NOT EXISTS source VARCHAR(10) DEFAULT 'MANUAL' NOT NULL;
+ALTER TABLE block ADD COLUMN IF NOT EXISTS feed VARCHAR(100);
+
+CREATE INDEX IF NOT EXISTS idx_block_property_feed ON block (property_id, source, feed, end_date);
@@ -0,0 +1,6 @@
+-- Keyset pagination of GET /bookings, see BookingSearchRepository: (check_in_date, id) alone or after the
+-- equality filter, so every filter combination walks an index from the cursor onwards.
+CREATE INDEX IF NOT EXISTS idx_booking_check_in ON booking (check_in_date, id);
+CREATE INDEX IF NOT EXISTS idx_booking_property_check_in ON booking (property_id, check_in_date, id);
+CREATE INDEX IF NOT EXISTS idx_booking_guest_check_in ON booking (guest_id, check_in_date, id);
+CREATE INDEX IF NOT EXISTS idx_booking_status_check_in ON booking (status, check_in_date, id);
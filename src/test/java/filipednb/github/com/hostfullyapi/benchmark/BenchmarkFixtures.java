@@ -0,0 +1,86 @@
+package filipednb.github.com.hostfullyapi.benchmark;
+
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import org.springframework.context.ApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * The data set the list read benchmarks run on: {@value #USERS} owners and as many guests,
+ * {@value #PROPERTIES} properties and {@value #BOOKINGS} bookings spread over them, saved in batches.
+ * Built from the application context rather than registered in it.
+ */
+final class BenchmarkFixtures {
+
+    static final int USERS = 100;
+
+    static final int PROPERTIES = 200;
+
+    static final int BOOKINGS = 5_000;
+
+    private final UserRepository userRepository;
+
+    private final PropertyRepository propertyRepository;
+
+    private final BookingRepository bookingRepository;
+
+    BenchmarkFixtures(final ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.propertyRepository = context.getBean(PropertyRepository.class);
+        this.bookingRepository = context.getBean(BookingRepository.class);
+    }
+
+    void seedBookings() {
+        var owners = new ArrayList<UserEntity>();
+        var guests = new ArrayList<UserEntity>();
+        for (int i = 0; i < USERS; i++) {
+            owners.add(user(UserTypeEnum.OWNER, "owner" + i));
+            guests.add(user(UserTypeEnum.GUEST, "guest" + i));
+        }
+        userRepository.saveAll(owners);
+        userRepository.saveAll(guests);
+
+        var properties = new ArrayList<PropertyEntity>();
+        for (int i = 0; i < PROPERTIES; i++) {
+            var property = new PropertyEntity();
+            property.setName("Property " + i);
+            property.setLocation("Location " + i % 10);
+            property.setOwner(owners.get(i % USERS));
+            properties.add(property);
+        }
+        propertyRepository.saveAll(properties);
+
+        var start = LocalDateTime.now().plusDays(1);
+        var bookings = new ArrayList<BookingEntity>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            var booking = new BookingEntity();
+            booking.setGuest(guests.get(i % USERS));
+            booking.setProperty(properties.get(i % PROPERTIES));
+            booking.setCheckInDate(start.plusDays(i / PROPERTIES * 2L));
+            booking.setCheckOutDate(start.plusDays(i / PROPERTIES * 2L + 1));
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    void deleteAll() {
+        bookingRepository.deleteAllInBatch();
+        propertyRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    private static UserEntity user(final UserTypeEnum type, final String name) {
+        var user = new UserEntity();
+        user.setType(type);
+        user.setName(name);
+        user.setEmail(name + "@dummy.com");
+        return user;
+    }
+}
@@ -0,0 +1,163 @@
+package filipednb.github.com.hostfullyapi.benchmark;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Insert throughput of bulk booking and block creation with JDBC batching off (batch size 1, one round trip
+ * per row as with the former IDENTITY ids) and on (the configured batch size, possible with pooled sequences).
+ * Run with ./gradlew benchmark, results are printed to the console.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class InsertThroughputBenchmark {
+
+    private static final int ROWS = 5_000;
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private static final int ROUNDS = 5;
+
+    private static final int[] BATCH_SIZES = {1, 50};
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PropertyEntity property;
+
+    private UserEntity guest;
+
+    @BeforeEach
+    void setUp() {
+        var owner = new UserEntity();
+        owner.setType(UserTypeEnum.OWNER);
+        owner.setName("Jack Spencer");
+        owner.setEmail("jack.spec@dummy.com");
+        owner = userRepository.save(owner);
+
+        guest = new UserEntity();
+        guest.setType(UserTypeEnum.GUEST);
+        guest.setName("Jonah Clement");
+        guest.setEmail("jonah.cle@yahoo.com");
+        guest = userRepository.save(guest);
+
+        property = new PropertyEntity();
+        property.setName("Ocean View Apartment");
+        property.setLocation("Miami, FL");
+        property.setOwner(owner);
+        property = propertyRepository.save(property);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAllInBatch();
+        blockRepository.deleteAllInBatch();
+        propertyRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bookingInserts() {
+        var start = LocalDateTime.now().plusDays(1);
+
+        run("booking", i -> {
+            var booking = new BookingEntity();
+            booking.setGuest(guest);
+            booking.setProperty(property);
+            booking.setCheckInDate(start.plusDays(i * 2L));
+            booking.setCheckOutDate(start.plusDays(i * 2L + 1));
+            return booking;
+        }, bookingRepository::saveAll, bookingRepository::deleteAllInBatch);
+    }
+
+    @Test
+    void blockInserts() {
+        var start = LocalDateTime.now().plusDays(1);
+
+        run("block", i -> {
+            var block = new BlockEntity();
+            block.setProperty(property);
+            block.setStartDate(start.plusDays(i * 2L));
+            block.setEndDate(start.plusDays(i * 2L + 1));
+            return block;
+        }, blockRepository::saveAll, blockRepository::deleteAllInBatch);
+    }
+
+    private <T> void run(final String name,
+                         final IntFunction<T> factory,
+                         final Consumer<List<T>> saveAll,
+                         final Runnable deleteAll) {
+        var transaction = new TransactionTemplate(transactionManager);
+
+        for (var batchSize : BATCH_SIZES) {
+            long totalNanos = 0;
+
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                var entities = new ArrayList<T>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    entities.add(factory.apply(i));
+                }
+
+                var startedAt = System.nanoTime();
+                transaction.executeWithoutResult(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                    saveAll.accept(entities);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                var elapsed = System.nanoTime() - startedAt;
+
+                if (round >= WARMUP_ROUNDS) {
+                    totalNanos += elapsed;
+                }
+                deleteAll.run();
+            }
+
+            var millisPerRound = totalNanos / 1_000_000.0 / ROUNDS;
+            System.out.printf("%-8s batch size %3d: %8.1f ms per %d rows, %,10.0f rows/s%n",
+                    name, batchSize, millisPerRound, ROWS, ROWS / (millisPerRound / 1000));
+        }
+    }
+}
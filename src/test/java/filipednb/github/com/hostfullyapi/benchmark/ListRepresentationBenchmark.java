@@ -0,0 +1,101 @@
+package filipednb.github.com.hostfullyapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingResponse;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingService;
+import filipednb.github.com.hostfullyapi.representation.FieldSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * Payload size and serialization time of GET /bookings?unpaginated=true in each view, with the
+ * application ObjectMapper. Building the response is included, reading the rows is not. Run with
+ * ./gradlew benchmark, results are printed to the console.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class ListRepresentationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private BenchmarkFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new BenchmarkFixtures(context);
+        fixtures.seedBookings();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void bookingListViews() {
+        var full = bookingService.findAll();
+        var ids = bookingService.findAllSummaries(false);
+        var included = bookingService.findAllSummaries(true);
+
+        run("FULL", () -> full);
+        run("FULL fields", () -> FieldSelection.select(full, FieldSelection.BOOKING_ITEMS, BookingResponse.class,
+                "id,checkInDate,checkOutDate,status"));
+        run("IDS", ids::getItems);
+        run("INCLUDED", () -> included);
+    }
+
+    private void run(final String view, final Supplier<Object> body) {
+        long totalNanos = 0;
+        var bytes = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            var startedAt = System.nanoTime();
+            var payload = write(body.get());
+            var elapsed = System.nanoTime() - startedAt;
+
+            if (round >= WARMUP_ROUNDS) {
+                totalNanos += elapsed;
+            }
+            bytes = payload.length;
+        }
+
+        System.out.printf("%-12s: %8.2f ms, %,12d bytes per list of %d bookings%n",
+                view, totalNanos / 1_000_000.0 / ROUNDS, bytes, BenchmarkFixtures.BOOKINGS);
+    }
+
+    private byte[] write(final Object body) {
+        try {
+            if (body instanceof MappingJacksonValue value) {
+                return objectMapper.writer(value.getFilters()).writeValueAsBytes(value.getValue());
+            }
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
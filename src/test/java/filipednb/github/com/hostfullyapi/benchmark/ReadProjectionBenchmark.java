@@ -0,0 +1,117 @@
+package filipednb.github.com.hostfullyapi.benchmark;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingMapper;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRow;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyMapper;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRow;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Latency and allocation of the list reads through managed entities mapped by MapStruct (the former
+ * path) and through constructor expression projections. Both run in a transaction, the way open session
+ * in view holds one around a request. Allocation is measured on the calling thread, where the JDBC
+ * driver runs too. Run with ./gradlew benchmark, results are printed to the console.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class ReadProjectionBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private BookingMapper bookingMapper;
+
+    @Autowired
+    private PropertyMapper propertyMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private BenchmarkFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new BenchmarkFixtures(context);
+        fixtures.seedBookings();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void bookingReads() {
+        run("bookings", "entities", () -> bookingRepository.findAll().stream().map(bookingMapper::toResponse).toList());
+        run("bookings", "projection", () -> bookingRepository.findAllRows().stream().map(BookingRow::toResponse).toList());
+    }
+
+    @Test
+    void propertyReads() {
+        run("properties", "entities", () -> propertyRepository.findAll().stream().map(propertyMapper::toResponse).toList());
+        run("properties", "projection", () -> propertyRepository.findAllRows().stream().map(PropertyRow::toResponse).toList());
+    }
+
+    private void run(final String name, final String path, final Supplier<List<?>> read) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+        var transaction = new TransactionTemplate(transactionManager);
+        long totalNanos = 0;
+        long totalBytes = 0;
+        var rows = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            var allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            var startedAt = System.nanoTime();
+            var responses = transaction.execute(status -> {
+                var result = read.get();
+                entityManager.clear();
+                return result;
+            });
+            var elapsed = System.nanoTime() - startedAt;
+            var allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            if (round >= WARMUP_ROUNDS) {
+                totalNanos += elapsed;
+                totalBytes += allocated;
+            }
+            rows = responses.size();
+        }
+
+        System.out.printf("%-10s %-10s: %8.2f ms, %,12d bytes allocated per read of %d rows%n",
+                name, path, totalNanos / 1_000_000.0 / ROUNDS, totalBytes / ROUNDS, rows);
+    }
+}
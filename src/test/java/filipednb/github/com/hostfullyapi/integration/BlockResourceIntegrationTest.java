@@ -28,6 +28,7 @@ import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 @SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -184,4 +185,37 @@ class BlockResourceIntegrationTest {
 
         assertFalse(blockRepository.findById(savedBlock.getId()).isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testImportBlocksFromCsvIsIdempotent() {
+        var start = LocalDateTime.now().plusDays(2).withNano(0);
+        var csv = "propertyId,startDate,endDate\n"
+                + testProperty.getId() + "," + start.format(formatter) + "," + start.plusDays(2).format(formatter) + "\n"
+                + testProperty.getId() + "," + start.plusDays(1).format(formatter) + "," + start.plusDays(4).format(formatter) + "\n"
+                + "0,not-a-date," + start.format(formatter) + "\n";
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/blocks/import")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("rows", is(3))
+                .body("created", is(1))
+                .body("rejected", is(1))
+                .body("errors[0].line", is(4));
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/blocks/import")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("created", is(0))
+                .body("alreadyBlocked", is(2));
+
+        assertEquals(1, blockRepository.count());
+    }
+}
@@ -2,6 +2,8 @@ package filipednb.github.com.hostfullyapi.integration;
 
 import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
 import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchModeEnum;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchRequest;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
@@ -24,12 +26,16 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -103,6 +109,7 @@ class BookingResourceIntegrationTest {
 
         given()
                 .contentType(ContentType.JSON)
+                .queryParam("unpaginated", true)
                 .when()
                 .get("/bookings")
                 .then()
@@ -111,6 +118,169 @@ class BookingResourceIntegrationTest {
                 .body("[0].id", notNullValue());
     }
 
+    @Test
+    void testExportBookingsAsNdjson() {
+        for (int i = 0; i < 3; i++) {
+            var bookingEntity = new BookingEntity();
+            bookingEntity.setCheckInDate(LocalDateTime.now().plusDays(1 + i * 3L));
+            bookingEntity.setCheckOutDate(LocalDateTime.now().plusDays(3 + i * 3L));
+            bookingEntity.setProperty(testProperty);
+            bookingEntity.setGuest(testGuest);
+            bookingRepository.save(bookingEntity);
+        }
+
+        var body = given()
+                .when()
+                .get("/bookings/export")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(containsString("application/x-ndjson"))
+                .extract().asString();
+
+        var lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"guest\""));
+    }
+
+    @Test
+    void testGetBookingsPagesWithCursorAndFilters() {
+        var start = LocalDateTime.now().plusDays(1).withNano(0);
+        BookingEntity last = null;
+        for (int i = 0; i < 3; i++) {
+            var bookingEntity = new BookingEntity();
+            bookingEntity.setCheckInDate(start.plusDays(i * 3L));
+            bookingEntity.setCheckOutDate(start.plusDays(i * 3L + 2));
+            bookingEntity.setProperty(testProperty);
+            bookingEntity.setGuest(testGuest);
+            last = bookingRepository.save(bookingEntity);
+        }
+
+        var cursor = given()
+                .queryParam("propertyId", testProperty.getId())
+                .queryParam("status", "ACTIVE")
+                .queryParam("size", 2)
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("items.size()", is(2))
+                .body("nextCursor", notNullValue())
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("propertyId", testProperty.getId())
+                .queryParam("status", "ACTIVE")
+                .queryParam("size", 2)
+                .queryParam("cursor", cursor)
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("items.size()", is(1))
+                .body("items[0].id", is(last.getId().intValue()))
+                .body("nextCursor", nullValue());
+
+        given()
+                .queryParam("guestId", testGuest.getId())
+                .queryParam("checkInFrom", start.plusDays(2).toString())
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("items.size()", is(2));
+    }
+
+    @Test
+    void testGetBookingsWithInvalidCursorOrSizeIsABadRequest() {
+        given()
+                .queryParam("cursor", "not a cursor")
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("error", is("Invalid cursor"));
+
+        given()
+                .queryParam("size", 501)
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void testCreateBookingRetryWithIdempotencyKeyIsReplayed() {
+        var bookingRequest = new BookingRequest();
+        bookingRequest.setCheckInDate(LocalDateTime.now().plusDays(1));
+        bookingRequest.setCheckOutDate(LocalDateTime.now().plusDays(2));
+        bookingRequest.setPropertyId(testProperty.getId());
+        bookingRequest.setGuestId(testGuest.getId());
+
+        var bookingId = given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", "3f1c2a8e-booking")
+                .body(bookingRequest)
+                .when()
+                .post("/bookings")
+                .then()
+                .statusCode(HttpStatus.CREATED.value())
+                .extract().jsonPath().getInt("id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", "3f1c2a8e-booking")
+                .body(bookingRequest)
+                .when()
+                .post("/bookings")
+                .then()
+                .statusCode(HttpStatus.CREATED.value())
+                .header("Idempotent-Replayed", "true")
+                .header("Location", containsString("/bookings/" + bookingId))
+                .body("id", is(bookingId));
+
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void testCreateBookingsBatchInPartialMode() {
+        var checkIn = LocalDateTime.now().plusDays(10);
+        var first = new BookingRequest();
+        first.setCheckInDate(checkIn);
+        first.setCheckOutDate(checkIn.plusDays(3));
+        first.setPropertyId(testProperty.getId());
+        first.setGuestId(testGuest.getId());
+        var overlapping = new BookingRequest();
+        overlapping.setCheckInDate(checkIn.plusDays(1));
+        overlapping.setCheckOutDate(checkIn.plusDays(4));
+        overlapping.setPropertyId(testProperty.getId());
+        overlapping.setGuestId(testGuest.getId());
+        var second = new BookingRequest();
+        second.setCheckInDate(checkIn.plusDays(5));
+        second.setCheckOutDate(checkIn.plusDays(7));
+        second.setPropertyId(testProperty.getId());
+        second.setGuestId(testGuest.getId());
+
+        var batch = new BookingBatchRequest();
+        batch.setMode(BookingBatchModeEnum.PARTIAL);
+        batch.setBookings(List.of(first, overlapping, second));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(batch)
+                .when()
+                .post("/bookings/batch")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("created", is(2))
+                .body("rejected", is(1))
+                .body("items[0].status", is("CREATED"))
+                .body("items[0].booking.id", notNullValue())
+                .body("items[1].status", is("CONFLICT"))
+                .body("items[2].status", is("CREATED"));
+
+        assertEquals(2, bookingRepository.count());
+    }
+
     @Test
     void testGetBookingById() {
         var bookingEntity = new BookingEntity();
@@ -152,6 +322,40 @@ class BookingResourceIntegrationTest {
                 .body("checkOutDate", notNullValue());
     }
 
+    @Test
+    void testCreateBookingMissedByTheIndexIsRejectedAtCommit() {
+        var checkIn = LocalDateTime.now().plusDays(10);
+        var bookingRequest = new BookingRequest();
+        bookingRequest.setCheckInDate(checkIn);
+        bookingRequest.setCheckOutDate(checkIn.plusDays(2));
+        bookingRequest.setPropertyId(testProperty.getId());
+        bookingRequest.setGuestId(testGuest.getId());
+
+        // Loads the property in the index, the next booking is written around it
+        given().contentType(ContentType.JSON).body(bookingRequest).when().post("/bookings")
+                .then().statusCode(HttpStatus.CREATED.value());
+
+        var hidden = new BookingEntity();
+        hidden.setCheckInDate(checkIn.plusDays(5));
+        hidden.setCheckOutDate(checkIn.plusDays(7));
+        hidden.setProperty(testProperty);
+        hidden.setGuest(testGuest);
+        bookingRepository.save(hidden);
+
+        bookingRequest.setCheckInDate(checkIn.plusDays(6));
+        bookingRequest.setCheckOutDate(checkIn.plusDays(8));
+        given()
+                .contentType(ContentType.JSON)
+                .body(bookingRequest)
+                .when()
+                .post("/bookings")
+                .then()
+                .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .body("error", is("The location is already booked at the given date"));
+
+        assertEquals(2, bookingRepository.count());
+    }
+
     @Test
     void testUpdateBooking() {
         var bookingEntity = new BookingEntity();
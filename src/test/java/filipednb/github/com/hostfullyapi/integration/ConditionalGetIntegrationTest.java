@@ -0,0 +1,206 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * A poller sending back the validators of its last response gets a 304, answered with a single statement
+ * that doesn't load the resource (a booking page reads just its rows), until the resource or anything
+ * embedded in it changes.
+ */
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ConditionalGetIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private IntegrationFixtures fixtures;
+
+    private SqlStatementCounter counter;
+
+    private UserEntity guest;
+
+    private PropertyEntity property;
+
+    private BookingEntity booking;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        counter = new SqlStatementCounter(entityManagerFactory);
+        fixtures = new IntegrationFixtures(context);
+        fixtures.deleteAll();
+
+        var owner = fixtures.saveUser(UserTypeEnum.OWNER, "owner");
+        guest = fixtures.saveUser(UserTypeEnum.GUEST, "guest");
+        property = fixtures.saveProperty(owner, "Ocean View Apartment", "Miami, FL");
+
+        var start = LocalDateTime.now().plusDays(10).withNano(0);
+        booking = fixtures.saveBooking(property, guest, start, start.plusDays(2));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void testBookingIsNotModifiedUntilItsGuestChanges() {
+        var path = "/bookings/" + booking.getId();
+        var etag = etagOf(path);
+
+        counter.assertStatements(1, "conditional GET " + path, () -> given()
+                .header("If-None-Match", etag)
+            .when()
+                .get(path)
+            .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value()));
+
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Renamed guest\", \"email\": \"renamed.guest@dummy.com\", \"type\": \"GUEST\"}")
+        .when()
+            .patch("/users/{id}", guest.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value());
+
+        given()
+            .header("If-None-Match", etag)
+        .when()
+            .get(path)
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .header("ETag", not(etag));
+    }
+
+    @Test
+    void testBookingHonorsIfModifiedSince() {
+        var path = "/bookings/" + booking.getId();
+        var lastModified = given()
+        .when()
+            .get(path)
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .header("Last-Modified", notNullValue())
+            .extract().header("Last-Modified");
+
+        given()
+            .header("If-Modified-Since", lastModified)
+        .when()
+            .get(path)
+        .then()
+            .statusCode(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    @Test
+    void testPropertyIsNotModifiedUntilItChanges() {
+        var path = "/properties/" + property.getId();
+        var etag = etagOf(path);
+
+        counter.assertStatements(1, "conditional GET " + path, () -> given()
+                .header("If-None-Match", etag)
+            .when()
+                .get(path)
+            .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value()));
+
+        property.setName("Ocean View Penthouse");
+        propertyRepository.save(property);
+
+        given()
+            .header("If-None-Match", etag)
+        .when()
+            .get(path)
+        .then()
+            .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void testListsAreNotModifiedUntilTheCollectionChanges() {
+        var bookings = etagOf("/bookings");
+        var allBookings = etagOf("/bookings?unpaginated=true");
+        var properties = etagOf("/properties");
+
+        // The page is read to hash it, the table isn't aggregated
+        counter.assertStatements(1, "conditional GET /bookings", () -> given()
+                .header("If-None-Match", bookings)
+            .when()
+                .get("/bookings")
+            .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value()));
+        counter.assertStatements(1, "conditional GET /properties", () -> given()
+                .header("If-None-Match", properties)
+            .when()
+                .get("/properties")
+            .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value()));
+
+        bookingRepository.delete(booking);
+
+        given()
+            .header("If-None-Match", bookings)
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value());
+        given()
+            .header("If-None-Match", allBookings)
+        .when()
+            .get("/bookings?unpaginated=true")
+        .then()
+            .statusCode(HttpStatus.OK.value());
+        given()
+            .header("If-None-Match", properties)
+        .when()
+            .get("/properties")
+        .then()
+            .statusCode(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    private static String etagOf(final String path) {
+        return given()
+        .when()
+            .get(path)
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .header("ETag", startsWith("\""))
+            .extract().header("ETag");
+    }
+}
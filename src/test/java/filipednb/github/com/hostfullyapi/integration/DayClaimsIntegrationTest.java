@@ -0,0 +1,230 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.AvailabilityIndex;
+import filipednb.github.com.hostfullyapi.domain.reservation.DayClaimsBackfill;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"hostfully.reservation.locking=DAY_CLAIMS", "hostfully.block-import.chunk-size=1"})
+@ActiveProfiles("test")
+class DayClaimsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private DayClaimsBackfill dayClaimsBackfill;
+
+    private PropertyEntity testProperty;
+    private UserEntity testGuest;
+    private LocalDateTime checkIn;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+
+        var owner = new UserEntity();
+        owner.setType(UserTypeEnum.OWNER);
+        owner.setName("Jack Spencer");
+        owner.setEmail("jack.spec@dummy.com");
+        owner = userRepository.save(owner);
+
+        testProperty = new PropertyEntity();
+        testProperty.setName("Ocean View Apartment");
+        testProperty.setOwner(owner);
+        testProperty.setLocation("Miami, FL");
+        testProperty = propertyRepository.save(testProperty);
+
+        testGuest = new UserEntity();
+        testGuest.setType(UserTypeEnum.GUEST);
+        testGuest.setName("Jonah Clement");
+        testGuest.setEmail("jonah.cle@yahoo.com");
+        testGuest = userRepository.save(testGuest);
+
+        checkIn = LocalDateTime.now().plusDays(10).withHour(15).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM reservation_day_claim");
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        propertyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testOverlappingBookingIsRejectedByClaim() {
+        postBooking(checkIn, checkIn.plusDays(3).withHour(11))
+                .statusCode(HttpStatus.CREATED.value());
+
+        postBooking(checkIn.plusDays(2), checkIn.plusDays(5))
+                .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .body("error", is("The location is already booked at the given date"));
+    }
+
+    @Test
+    void testAvailabilityIndexIsTurnedOff() {
+        assertFalse(availabilityIndex.isEnabled());
+    }
+
+    @Test
+    void testSameDayTurnoverIsAccepted() {
+        postBooking(checkIn, checkIn.plusDays(3).withHour(11))
+                .statusCode(HttpStatus.CREATED.value());
+
+        postBooking(checkIn.plusDays(3), checkIn.plusDays(5))
+                .statusCode(HttpStatus.CREATED.value());
+    }
+
+    @Test
+    void testOverlapOnTheSharedEdgeDayIsRejectedAtCommit() {
+        var day = checkIn.toLocalDate();
+        postBooking(day.atTime(10, 0), day.plusDays(1).atTime(11, 0))
+                .statusCode(HttpStatus.CREATED.value());
+
+        postBooking(day.plusDays(1).atTime(9, 0), day.plusDays(2).atTime(9, 0))
+                .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .body("error", is("The location is already booked at the given date"));
+    }
+
+    @Test
+    void testBackfillClaimsBookingsWrittenInAnotherMode() {
+        var booking = new BookingEntity();
+        booking.setProperty(testProperty);
+        booking.setGuest(testGuest);
+        booking.setCheckInDate(checkIn);
+        booking.setCheckOutDate(checkIn.plusDays(3).withHour(11));
+        bookingRepository.save(booking);
+
+        assertEquals(1, dayClaimsBackfill.backfill(testProperty.getId()));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservation_day_claim WHERE property_id = ?",
+                Integer.class, testProperty.getId()));
+
+        postBooking(checkIn.plusDays(2), checkIn.plusDays(5))
+                .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value());
+    }
+
+    @Test
+    void testBlockOverClaimedNightsIsRejected() {
+        postBooking(checkIn, checkIn.plusDays(3))
+                .statusCode(HttpStatus.CREATED.value());
+
+        var blockRequest = new BlockRequest();
+        blockRequest.setPropertyId(testProperty.getId());
+        blockRequest.setStartDate(checkIn.plusDays(1));
+        blockRequest.setEndDate(checkIn.plusDays(4));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(blockRequest)
+                .when()
+                .post("/blocks")
+                .then()
+                .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .body("error", is("Property is already booked on this date range"));
+    }
+
+    @Test
+    void testFailedImportChunkReturnsWhatWasImported() {
+        // A night claimed without a reservation row, so only the claim insert of the second block fails
+        jdbcTemplate.update("INSERT INTO reservation_day_claim (property_id, claim_date, kind, reservation_id) VALUES (?, ?, ?, ?)",
+                testProperty.getId(), checkIn.plusDays(11).toLocalDate(), "BOOKING", 0L);
+        var csv = "propertyId,startDate,endDate\n"
+                + testProperty.getId() + "," + checkIn + "," + checkIn.plusDays(3) + "\n"
+                + testProperty.getId() + "," + checkIn.plusDays(10) + "," + checkIn.plusDays(13) + "\n"
+                + testProperty.getId() + "," + checkIn.plusDays(20) + "," + checkIn.plusDays(23) + "\n";
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/blocks/import")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("created", is(1))
+                .body("stoppedAtLine", is(3))
+                .body("stopReason", is("A concurrent reservation took one of the imported periods, please retry the import"));
+
+        assertEquals(1, blockRepository.count());
+    }
+
+    @Test
+    void testCancelledBookingReleasesItsNights() {
+        var bookingId = postBooking(checkIn, checkIn.plusDays(3))
+                .statusCode(HttpStatus.CREATED.value())
+                .extract().jsonPath().getLong("id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/bookings/{id}/cancel", bookingId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        postBooking(checkIn.plusDays(1), checkIn.plusDays(4))
+                .statusCode(HttpStatus.CREATED.value());
+    }
+
+    private ValidatableResponse postBooking(final LocalDateTime in, final LocalDateTime out) {
+        var bookingRequest = new BookingRequest();
+        bookingRequest.setCheckInDate(in);
+        bookingRequest.setCheckOutDate(out);
+        bookingRequest.setPropertyId(testProperty.getId());
+        bookingRequest.setGuestId(testGuest.getId());
+
+        return given()
+                .contentType(ContentType.JSON)
+                .body(bookingRequest)
+                .when()
+                .post("/bookings")
+                .then();
+    }
+}
@@ -0,0 +1,91 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rows saved straight through the repositories, around the services, and the cleanup of the tables they
+ * go to. Built from the application context rather than registered in it, so the tests using it keep the
+ * same cached context as the others.
+ */
+final class IntegrationFixtures {
+
+    private final UserRepository userRepository;
+
+    private final PropertyRepository propertyRepository;
+
+    private final BookingRepository bookingRepository;
+
+    private final BlockRepository blockRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    IntegrationFixtures(final ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.propertyRepository = context.getBean(PropertyRepository.class);
+        this.bookingRepository = context.getBean(BookingRepository.class);
+        this.blockRepository = context.getBean(BlockRepository.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    UserEntity saveUser(final UserTypeEnum type, final String name) {
+        var user = new UserEntity();
+        user.setType(type);
+        user.setName(name);
+        user.setEmail(name + "@dummy.com");
+
+        return userRepository.save(user);
+    }
+
+    PropertyEntity saveProperty(final UserEntity owner, final String name, final String location) {
+        var property = new PropertyEntity();
+        property.setName(name);
+        property.setLocation(location);
+        property.setOwner(owner);
+
+        return propertyRepository.save(property);
+    }
+
+    BookingEntity saveBooking(final PropertyEntity property, final UserEntity guest,
+                              final LocalDateTime checkIn, final LocalDateTime checkOut) {
+        var booking = new BookingEntity();
+        booking.setProperty(property);
+        booking.setGuest(guest);
+        booking.setCheckInDate(checkIn);
+        booking.setCheckOutDate(checkOut);
+
+        return bookingRepository.save(booking);
+    }
+
+    BlockEntity saveBlock(final PropertyEntity property, final LocalDateTime start, final LocalDateTime end) {
+        var block = new BlockEntity();
+        block.setProperty(property);
+        block.setStartDate(start);
+        block.setEndDate(end);
+
+        return blockRepository.save(block);
+    }
+
+    /**
+     * Deletes every booking, block, property and user, and the occupancy read model built from them.
+     */
+    void deleteAll() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
+        propertyRepository.deleteAll();
+        userRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM property_occupancy_interval");
+        jdbcTemplate.update("DELETE FROM property_occupancy");
+    }
+}
@@ -0,0 +1,109 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Every list endpoint must load its whole page in one statement, whatever the number of distinct
+ * guests, properties and owners in it. The unpaginated booking and property lists run one more before it,
+ * the aggregate their ETag comes from, so that a matching If-None-Match is answered without the list.
+ */
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ListEndpointsStatementCountTest {
+
+    private static final int ROWS = 5;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private IntegrationFixtures fixtures;
+
+    private SqlStatementCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        counter = new SqlStatementCounter(entityManagerFactory);
+        fixtures = new IntegrationFixtures(context);
+        fixtures.deleteAll();
+
+        var start = LocalDateTime.now().plusDays(10).withNano(0);
+        for (var i = 0; i < ROWS; i++) {
+            var owner = fixtures.saveUser(UserTypeEnum.OWNER, "owner" + i);
+            var guest = fixtures.saveUser(UserTypeEnum.GUEST, "guest" + i);
+            var property = fixtures.saveProperty(owner, "Property " + i, "Location " + i);
+
+            fixtures.saveBooking(property, guest, start.plusDays(i), start.plusDays(i + 1));
+            fixtures.saveBlock(property, start.plusDays(20 + i), start.plusDays(21 + i));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void testGetAllBookingsRunsRevisionAndListStatements() {
+        counter.assertStatements(2, "GET /bookings?unpaginated=true", () -> given()
+                .queryParam("unpaginated", true)
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(ROWS)));
+    }
+
+    @Test
+    void testGetBookingsPageRunsOneStatement() {
+        counter.assertStatements(1, "GET /bookings", () -> given()
+                .when()
+                .get("/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("items", hasSize(ROWS)));
+    }
+
+    @Test
+    void testGetAllPropertiesRunsRevisionAndListStatements() {
+        counter.assertStatements(2, "GET /properties", () -> given()
+                .when()
+                .get("/properties")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(ROWS)));
+    }
+
+    @Test
+    void testGetAllBlocksRunsOneStatement() {
+        counter.assertStatements(1, "GET /blocks", () -> given()
+                .when()
+                .get("/blocks")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(ROWS)));
+    }
+}
@@ -0,0 +1,167 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ListRepresentationIntegrationTest {
+
+    private static final int BOOKINGS = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private IntegrationFixtures fixtures;
+
+    private PropertyEntity property;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        fixtures = new IntegrationFixtures(context);
+        fixtures.deleteAll();
+
+        var owner = fixtures.saveUser(UserTypeEnum.OWNER, "owner");
+        var guest = fixtures.saveUser(UserTypeEnum.GUEST, "guest");
+        property = fixtures.saveProperty(owner, "Ocean View Apartment", "Miami, FL");
+
+        var start = LocalDateTime.now().plusDays(10).withNano(0);
+        for (var i = 0; i < BOOKINGS; i++) {
+            fixtures.saveBooking(property, guest, start.plusDays(i * 2L), start.plusDays(i * 2L + 1));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void testFullViewIsTheDefault() {
+        given()
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items", hasSize(BOOKINGS))
+            .body("items[0].property.owner.name", is("owner"))
+            .body("$", not(hasKey("included")));
+    }
+
+    @Test
+    void testIdsViewReferencesPropertyAndGuest() {
+        given()
+            .queryParam("view", "IDS")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items", hasSize(BOOKINGS))
+            .body("items[0].propertyId", is(property.getId().intValue()))
+            .body("items[0]", not(hasKey("property")))
+            .body("$", not(hasKey("included")));
+    }
+
+    @Test
+    void testIncludedViewWritesEachPropertyAndUserOnce() {
+        given()
+            .queryParam("view", "INCLUDED")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items", hasSize(BOOKINGS))
+            .body("included.properties", hasSize(1))
+            .body("included.properties[0].ownerId", not(nullValue()))
+            .body("included.users", hasSize(2));
+
+        given()
+            .queryParam("unpaginated", true)
+            .queryParam("view", "INCLUDED")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items", hasSize(BOOKINGS))
+            .body("included.users", hasSize(2));
+
+        given()
+            .queryParam("view", "INCLUDED")
+        .when()
+            .get("/properties")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items", hasSize(1))
+            .body("included.users[0].name", is("owner"))
+            .body("included", not(hasKey("properties")));
+    }
+
+    @Test
+    void testFieldsSelectTheItemFields() {
+        given()
+            .queryParam("fields", "id,status")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items[0].keySet()", hasSize(2))
+            .body("items[0].status", is("ACTIVE"))
+            .body("$", hasKey("nextCursor"));
+
+        given()
+            .queryParam("unpaginated", true)
+            .queryParam("view", "IDS")
+            .queryParam("fields", "id,propertyId")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("[0].keySet()", hasSize(2))
+            .body("[0].propertyId", is(property.getId().intValue()));
+
+        given()
+            .queryParam("fields", "name")
+        .when()
+            .get("/properties")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("[0].keySet()", hasSize(1))
+            .body("[0].name", is("Ocean View Apartment"));
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() {
+        given()
+            .queryParam("fields", "id,guestId")
+        .when()
+            .get("/bookings")
+        .then()
+            .statusCode(HttpStatus.UNPROCESSABLE_ENTITY.value())
+            .body("error", containsString("Unknown field guestId"));
+    }
+}
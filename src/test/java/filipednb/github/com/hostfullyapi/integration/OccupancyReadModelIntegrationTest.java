@@ -0,0 +1,178 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyRebuilder;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Searches, calendars and the next free date come from the occupancy read model: booking and block writes
+ * made through the API update it in their transaction, rows written around the services only show up
+ * once it is rebuilt.
+ */
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class OccupancyReadModelIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OccupancyRebuilder occupancyRebuilder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private IntegrationFixtures fixtures;
+
+    private UserEntity guest;
+
+    private PropertyEntity property;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        fixtures = new IntegrationFixtures(context);
+        fixtures.deleteAll();
+
+        var owner = fixtures.saveUser(UserTypeEnum.OWNER, "owner");
+        guest = fixtures.saveUser(UserTypeEnum.GUEST, "guest");
+        property = fixtures.saveProperty(owner, "Ocean View Apartment", "Miami, FL");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void testBookingAndBlockWritesKeepTheNextFreeDate() {
+        var checkIn = LocalDateTime.now().plusMinutes(1).withNano(0);
+        var today = checkIn.toLocalDate();
+
+        var bookingRequest = new BookingRequest();
+        bookingRequest.setPropertyId(property.getId());
+        bookingRequest.setGuestId(guest.getId());
+        bookingRequest.setCheckInDate(checkIn);
+        bookingRequest.setCheckOutDate(today.plusDays(3).atTime(11, 0));
+        var bookingId = given()
+                .contentType(ContentType.JSON)
+                .body(bookingRequest)
+                .when()
+                .post("/bookings")
+                .then()
+                .statusCode(HttpStatus.CREATED.value())
+                .extract().jsonPath().getLong("id");
+
+        var blockRequest = new BlockRequest();
+        blockRequest.setPropertyId(property.getId());
+        blockRequest.setStartDate(today.plusDays(3).atTime(12, 0));
+        blockRequest.setEndDate(today.plusDays(5).atStartOfDay());
+        var blockId = given()
+                .contentType(ContentType.JSON)
+                .body(blockRequest)
+                .when()
+                .post("/blocks")
+                .then()
+                .statusCode(HttpStatus.CREATED.value())
+                .extract().jsonPath().getLong("id");
+
+        assertEquals(2, intervalCount());
+        assertNextFreeDate(today.plusDays(5));
+
+        given().when().post("/bookings/{id}/cancel", bookingId).then().statusCode(HttpStatus.OK.value());
+        assertEquals(1, intervalCount());
+        assertNextFreeDate(today);
+
+        given().when().post("/bookings/{id}/rebook", bookingId).then().statusCode(HttpStatus.OK.value());
+        assertNextFreeDate(today.plusDays(5));
+
+        given().when().delete("/blocks/{id}", blockId).then().statusCode(HttpStatus.NO_CONTENT.value());
+        assertEquals(1, intervalCount());
+        assertNextFreeDate(today.plusDays(3));
+    }
+
+    @Test
+    void testRebuildCopiesRowsWrittenAroundTheServices() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+        fixtures.saveBooking(property, guest, from, from.plusDays(2));
+        jdbcTemplate.update("INSERT INTO property_occupancy_interval (property_id, kind, reservation_id, start_date, end_date) "
+                + "VALUES (?, 'BLOCK', ?, ?, ?)", Long.MAX_VALUE, Long.MAX_VALUE, from, from.plusDays(1));
+
+        assertAvailable(from, 1);
+
+        assertTrue(occupancyRebuilder.rebuild() >= 1);
+
+        assertAvailable(from, 0);
+        assertEquals(1, intervalCount());
+        given()
+                .queryParam("from", from.toString())
+                .queryParam("to", from.plusDays(3).toString())
+                .when()
+                .get("/properties/{id}/calendar", property.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(2))
+                .body("[0].status", is("BUSY"));
+    }
+
+    @Test
+    void testOccupancyOfUnknownProperty() {
+        given()
+                .when()
+                .get("/properties/{id}/occupancy", Long.MAX_VALUE)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    private void assertNextFreeDate(final LocalDate expected) {
+        given()
+                .when()
+                .get("/properties/{id}/occupancy", property.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("propertyId", is(property.getId().intValue()))
+                .body("nextFreeDate", is(expected.toString()));
+    }
+
+    private void assertAvailable(final LocalDateTime from, final int count) {
+        given()
+                .queryParam("from", from.toString())
+                .queryParam("to", from.plusDays(1).toString())
+                .when()
+                .get("/properties/available")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("items.size()", is(count));
+    }
+
+    private int intervalCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM property_occupancy_interval", Integer.class);
+    }
+}
@@ -1,14 +1,21 @@
 package filipednb.github.com.hostfullyapi.integration;
 
 import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyRequest;
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyRebuilder;
 import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
 import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
 import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,14 +24,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -39,11 +59,25 @@ class PropertyResourceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private OccupancyRebuilder occupancyRebuilder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private UserEntity testOwner;
 
     @BeforeEach
     void setUp() {
         RestAssured.port = port;
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
         propertyRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -57,6 +91,8 @@ class PropertyResourceIntegrationTest {
 
     @AfterEach
     void cleanUp() {
+        bookingRepository.deleteAll();
+        blockRepository.deleteAll();
         propertyRepository.deleteAll();
         userRepository.deleteAll();
     }
@@ -144,4 +180,330 @@ class PropertyResourceIntegrationTest {
             .body("location", is("Updated Miami, FL"))
             .body("owner.id", is(testOwner.getId().intValue()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAvailableProperties() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+        var to = from.plusDays(3);
+
+        var booked = saveProperty("Booked Apartment", "Miami, FL");
+        var blocked = saveProperty("Blocked Apartment", "Miami, FL");
+        var free = saveProperty("Free Apartment", "Miami, FL");
+        saveProperty("Free Elsewhere", "Orlando, FL");
+
+        var guest = new UserEntity();
+        guest.setType(UserTypeEnum.GUEST);
+        guest.setName("Jonah Clement");
+        guest.setEmail("jonah.cle@yahoo.com");
+        guest = userRepository.save(guest);
+
+        var booking = new BookingEntity();
+        booking.setProperty(booked);
+        booking.setGuest(guest);
+        booking.setCheckInDate(from.plusDays(1));
+        booking.setCheckOutDate(from.plusDays(5));
+        bookingRepository.save(booking);
+
+        var block = new BlockEntity();
+        block.setProperty(blocked);
+        block.setStartDate(from.minusDays(2));
+        block.setEndDate(from.plusHours(2));
+        blockRepository.save(block);
+
+        // Saved around the services, searches only see them once the read model is rebuilt
+        occupancyRebuilder.rebuild();
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("from", from.toString())
+            .queryParam("to", to.toString())
+            .queryParam("location", "Miami, FL")
+        .when()
+            .get("/properties/available")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items.size()", is(1))
+            .body("items[0].id", is(free.getId().intValue()))
+            .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void testGetAvailablePropertiesPagesOnTheCursor() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+        var first = saveProperty("Alfama Loft", "Lisbon, PT");
+        var second = saveProperty("Baixa Studio", "Lisbon, PT");
+        var third = saveProperty("Belem House", "Lisbon, PT");
+
+        var cursor = given()
+            .queryParam("from", from.toString())
+            .queryParam("to", from.plusDays(2).toString())
+            .queryParam("location", "Lisbon, PT")
+            .queryParam("size", 2)
+        .when()
+            .get("/properties/available")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items.id", contains(first.getId().intValue(), second.getId().intValue()))
+            .body("nextCursor", is(second.getId().intValue()))
+            .extract().path("nextCursor");
+
+        given()
+            .queryParam("from", from.toString())
+            .queryParam("to", from.plusDays(2).toString())
+            .queryParam("location", "Lisbon, PT")
+            .queryParam("size", 2)
+            .queryParam("cursor", cursor)
+        .when()
+            .get("/properties/available")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("items.id", contains(third.getId().intValue()))
+            .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void testGetPropertyCalendar() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+        var to = from.plusDays(10);
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+
+        var block = new BlockEntity();
+        block.setProperty(property);
+        block.setStartDate(from.plusDays(2));
+        block.setEndDate(from.plusDays(4));
+        blockRepository.save(block);
+        occupancyRebuilder.rebuild(property.getId());
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("from", from.toString())
+            .queryParam("to", to.toString())
+        .when()
+            .get("/properties/{id}/calendar", property.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("size()", is(3))
+            .body("[0].status", is("FREE"))
+            .body("[1].status", is("BUSY"))
+            .body("[2].status", is("FREE"));
+    }
+
+    @Test
+    void testGetPropertyCalendarNotFound() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("from", from.toString())
+            .queryParam("to", from.plusDays(1).toString())
+        .when()
+            .get("/properties/{id}/calendar", Long.MAX_VALUE)
+        .then()
+            .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    @Test
+    void testPropertyICalendarExportIsConditional() {
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+
+        var etag = given()
+        .when()
+            .get("/properties/{id}/calendar.ics", property.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .contentType(containsString("text/calendar"))
+            .body(containsString("BEGIN:VCALENDAR"))
+            .header("ETag", notNullValue())
+            .extract().header("ETag");
+
+        given()
+            .header("If-None-Match", etag)
+        .when()
+            .get("/properties/{id}/calendar.ics", property.getId())
+        .then()
+            .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        importICalendar(property.getId(), "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:" + LocalDate.now().plusDays(5).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "DTEND;VALUE=DATE:" + LocalDate.now().plusDays(8).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "END:VEVENT\r\n")
+            .body("created", is(1));
+
+        given()
+            .header("If-None-Match", etag)
+        .when()
+            .get("/properties/{id}/calendar.ics", property.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body(containsString("SUMMARY:Blocked"));
+    }
+
+    @Test
+    void testPropertyICalendarImportAppliesOnlyTheDifference() {
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+        var first = "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:" + LocalDate.now().plusDays(5).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "DTEND;VALUE=DATE:" + LocalDate.now().plusDays(8).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "END:VEVENT\r\n";
+        var second = "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:" + LocalDate.now().plusDays(20).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "DTEND;VALUE=DATE:" + LocalDate.now().plusDays(22).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "END:VEVENT\r\n";
+
+        importICalendar(property.getId(), first + second)
+            .body("events", is(2))
+            .body("created", is(2));
+
+        importICalendar(property.getId(), first)
+            .body("created", is(0))
+            .body("unchanged", is(1))
+            .body("deleted", is(1));
+
+        assertEquals(1, blockRepository.count());
+    }
+
+    @Test
+    void testPropertyICalendarImportKeepsBlocksNotFromTheFeed() {
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+        var today = LocalDate.now().atStartOfDay();
+
+        var manual = new BlockEntity();
+        manual.setProperty(property);
+        manual.setStartDate(today.plusDays(30));
+        manual.setEndDate(today.plusDays(33));
+        blockRepository.save(manual);
+        occupancyRebuilder.rebuild(property.getId());
+
+        importICalendar(property.getId(), "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:" + LocalDate.now().plusDays(5).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "DTEND;VALUE=DATE:" + LocalDate.now().plusDays(8).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "END:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:" + LocalDate.now().plusDays(31).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "DTEND;VALUE=DATE:" + LocalDate.now().plusDays(32).format(DateTimeFormatter.BASIC_ISO_DATE) + "\r\n"
+                + "END:VEVENT\r\n")
+            .body("created", is(1))
+            .body("rejected", is(1))
+            .body("errors[0].message", is("Overlaps an existing block"));
+
+        importICalendar(property.getId(), "")
+            .body("deleted", is(1));
+
+        assertEquals(1, blockRepository.count());
+        assertTrue(blockRepository.findById(manual.getId()).isPresent());
+    }
+
+    @Test
+    void testPropertyICalendarImportRejectsPeriodsShorterThanADay() {
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+        var start = LocalDate.now().plusDays(5).atTime(10, 0);
+
+        importICalendar(property.getId(), "BEGIN:VEVENT\r\n"
+                + "DTSTART:" + start.format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss")) + "\r\n"
+                + "DTEND:" + start.plusHours(3).format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss")) + "\r\n"
+                + "END:VEVENT\r\n")
+            .body("events", is(1))
+            .body("created", is(0))
+            .body("rejected", is(1))
+            .body("errors[0].message", is("Duration should have at least 24 hours"));
+
+        assertEquals(0, blockRepository.count());
+    }
+
+    @Test
+    void testCancelPropertyBookingsInRange() {
+        var from = LocalDateTime.now().plusDays(10).withNano(0);
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+
+        var guest = new UserEntity();
+        guest.setType(UserTypeEnum.GUEST);
+        guest.setName("Jonah Clement");
+        guest.setEmail("jonah.cle@yahoo.com");
+        guest = userRepository.save(guest);
+
+        var inside = saveBooking(property, guest, from.plusDays(1), from.plusDays(3));
+        var overlapping = saveBooking(property, guest, from.plusDays(6), from.plusDays(12));
+        var outside = saveBooking(property, guest, from.plusDays(20), from.plusDays(22));
+
+        given()
+            .queryParam("from", from.toString())
+            .queryParam("to", from.plusDays(10).toString())
+        .when()
+            .post("/properties/{id}/bookings/cancel", property.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("cancelled", is(2))
+            .body("bookingIds[0]", is(inside.getId().intValue()))
+            .body("bookingIds[1]", is(overlapping.getId().intValue()));
+
+        assertEquals(BookingStatusEnum.CANCELLED, bookingRepository.findById(inside.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatusEnum.CANCELLED, bookingRepository.findById(overlapping.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatusEnum.ACTIVE, bookingRepository.findById(outside.getId()).orElseThrow().getStatus());
+    }
+
+    private ValidatableResponse importICalendar(final Long propertyId, final String events) {
+        return given()
+            .contentType("text/calendar")
+            .body("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + events + "END:VCALENDAR\r\n")
+        .when()
+            .put("/properties/{id}/calendar.ics", propertyId)
+        .then()
+            .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void testGetPropertyByIdDoesNotWaitForReservationLock() throws InterruptedException {
+        var property = saveProperty("Ocean View Apartment", "Miami, FL");
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var writer = Executors.newSingleThreadExecutor();
+
+        try {
+            // Simulates a long booking transaction holding the property row lock
+            writer.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                propertyRepository.findByIdForUpdate(property.getId());
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            given()
+                .contentType(ContentType.JSON)
+            .when()
+                .get("/properties/{id}", property.getId())
+            .then()
+                .statusCode(HttpStatus.OK.value())
+                .time(lessThan(1000L))
+                .body("id", is(property.getId().intValue()));
+        } finally {
+            release.countDown();
+            writer.shutdown();
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private BookingEntity saveBooking(final PropertyEntity property,
+                                      final UserEntity guest,
+                                      final LocalDateTime checkIn,
+                                      final LocalDateTime checkOut) {
+        var booking = new BookingEntity();
+        booking.setProperty(property);
+        booking.setGuest(guest);
+        booking.setCheckInDate(checkIn);
+        booking.setCheckOutDate(checkOut);
+        return bookingRepository.save(booking);
+    }
+
+    private PropertyEntity saveProperty(final String name, final String location) {
+        var propertyEntity = new PropertyEntity();
+        propertyEntity.setName(name);
+        propertyEntity.setLocation(location);
+        propertyEntity.setOwner(testOwner);
+        return propertyRepository.save(propertyEntity);
+    }
+}
@@ -0,0 +1,304 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingSearchRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingSearchRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every query method of the repositories with sample arguments, records the SQL Hibernate sends
+ * and asks H2 for its plan with EXPLAIN (parameters are left unbound, the plan doesn't need them).
+ * A reservation table read with a full scan fails the test, unless the method reads the whole table
+ * on purpose. The database is a private in-memory one, so the migrations run on fresh tables.
+ */
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:queryplans;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + "filipednb.github.com.hostfullyapi.integration.RecordingStatementInspector"
+        })
+@ActiveProfiles("test")
+class QueryPlanRegressionTest {
+
+    private static final Pattern RESERVATION_TABLE_SCAN =
+            Pattern.compile("PUBLIC\\.(BOOKING|BLOCK|RESERVATION_DAY_CLAIM|PROPERTY_OCCUPANCY_INTERVAL)\\.tableScan");
+
+    private static final Set<String> EXPLAINED = Set.of("select", "update", "delete", "with");
+
+    /**
+     * Methods listing a whole table, for which a scan is the right plan.
+     */
+    private static final Set<String> FULL_READS = Set.of(
+            "BookingRepository.findAll",
+            "BookingRepository.findAllRows",
+            "BookingRepository.findCollectionVersion",
+            "BlockRepository.findAll",
+            "BookingSearchRepository.streamAll",
+            "OccupancyRepository.deleteOrphans",
+            "PropertyRepository.findAll",
+            "PropertyRepository.findAllRows",
+            "UserRepository.findAll",
+            "UserRepository.findAllResponses");
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 15, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OccupancyRepository occupancyRepository;
+
+    @Autowired
+    private BookingSearchRepository bookingSearchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testReservationQueriesDontScanTables() {
+        var repositories = Map.<Class<?>, Object>of(
+                BookingRepository.class, bookingRepository,
+                BlockRepository.class, blockRepository,
+                PropertyRepository.class, propertyRepository,
+                UserRepository.class, userRepository,
+                ReservationRepository.class, reservationRepository,
+                OccupancyRepository.class, occupancyRepository);
+        var failures = new ArrayList<String>();
+        var explained = 0;
+
+        for (var repository : repositories.entrySet()) {
+            var methods = Arrays.stream(repository.getKey().getDeclaredMethods())
+                    .filter(method -> Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()))
+                    .filter(method -> !method.isSynthetic() && !method.isDefault())
+                    .sorted(Comparator.comparing(Method::getName).thenComparing(Method::getParameterCount))
+                    .toList();
+
+            for (var method : methods) {
+                var name = repository.getKey().getSimpleName() + "." + method.getName();
+
+                for (var sql : statementsOf(repository.getValue(), method)) {
+                    check(name, sql, failures);
+                    explained++;
+                }
+            }
+        }
+
+        assertTrue(explained > 0, "No statement was recorded, is the statement inspector registered?");
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    /**
+     * Each filter of GET /bookings alone, on the first page and after a cursor. Its repository is not a
+     * Spring Data one and its page query is built at runtime, so the methods are called one by one.
+     */
+    @Test
+    void testBookingSearchesDontScanTables() throws ReflectiveOperationException {
+        var repository = AopTestUtils.<BookingSearchRepository>getTargetObject(bookingSearchRepository);
+        var cursorType = Class.forName(BookingSearchRepository.class.getPackageName() + ".BookingCursor");
+        var findPage = BookingSearchRepository.class.getDeclaredMethod("findPage", BookingSearchRequest.class, cursorType, int.class);
+        findPage.setAccessible(true);
+        var cursorConstructor = cursorType.getDeclaredConstructor(LocalDateTime.class, Long.class);
+        cursorConstructor.setAccessible(true);
+        var after = cursorConstructor.newInstance(START, 1L);
+
+        var searches = new LinkedHashMap<String, BookingSearchRequest>();
+        searches.put("no filter", new BookingSearchRequest());
+        searches.put("propertyId", search(request -> request.setPropertyId(1L)));
+        searches.put("guestId", search(request -> request.setGuestId(1L)));
+        searches.put("status", search(request -> request.setStatus(BookingStatusEnum.ACTIVE)));
+        searches.put("check-in window", search(request -> {
+            request.setCheckInFrom(START);
+            request.setCheckInTo(START.plusDays(30));
+        }));
+        var failures = new ArrayList<String>();
+
+        for (var search : searches.entrySet()) {
+            for (var cursor : Arrays.asList(null, after)) {
+                var name = "BookingSearchRepository.findPage (" + search.getKey() + (cursor == null ? ")" : ", after a cursor)");
+                var statements = statementsOf(name, () -> findPage.invoke(repository, search.getValue(), cursor, 51));
+
+                assertFalse(statements.isEmpty(), name + " sent no statement");
+                statements.forEach(sql -> check(name, sql, failures));
+            }
+        }
+        statementsOf("BookingSearchRepository.streamAll", () -> repository.streamAll(100))
+                .forEach(sql -> check("BookingSearchRepository.streamAll", sql, failures));
+
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    @Test
+    void testMigrationsCreateTheOverlapIndexes() {
+        var indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+
+        assertTrue(indexes.contains("idx_booking_property_status_dates"), indexes.toString());
+        assertTrue(indexes.contains("idx_block_property_dates"), indexes.toString());
+        assertTrue(indexes.containsAll(List.of("idx_booking_check_in", "idx_booking_property_check_in",
+                "idx_booking_guest_check_in", "idx_booking_status_check_in")), indexes.toString());
+        assertFalse(jdbcTemplate.queryForList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE LOWER(TABLE_NAME) = 'flyway_schema_history'", String.class).isEmpty());
+    }
+
+    /**
+     * Calls the method in a transaction rolled back afterwards and returns the statements it sent.
+     */
+    private List<String> statementsOf(final Object repository, final Method method) {
+        var arguments = Arrays.stream(method.getGenericParameterTypes())
+                .map(QueryPlanRegressionTest::sample)
+                .toArray();
+
+        return statementsOf(method.toString(), () -> method.invoke(repository, arguments));
+    }
+
+    private List<String> statementsOf(final String name, final Callable<?> call) {
+        var transaction = new TransactionTemplate(transactionManager);
+
+        RecordingStatementInspector.drain();
+        transaction.executeWithoutResult(status -> {
+            try {
+                var result = call.call();
+                if (result instanceof Stream<?> stream) {
+                    try (stream) {
+                        stream.forEach(row -> { });
+                    }
+                }
+            } catch (Exception e) {
+                fail("Cannot run " + name, e);
+            } finally {
+                status.setRollbackOnly();
+            }
+        });
+
+        return RecordingStatementInspector.drain().stream()
+                .filter(sql -> EXPLAINED.contains(firstWord(sql)))
+                .filter(sql -> !sql.toLowerCase(Locale.ROOT).contains("next value for"))
+                .toList();
+    }
+
+    /**
+     * Adds the plan of the statement to the failures when it scans a reservation table it shouldn't.
+     */
+    private void check(final String name, final String sql, final List<String> failures) {
+        var plan = explain(sql);
+
+        if (!FULL_READS.contains(name) && RESERVATION_TABLE_SCAN.matcher(plan).find()) {
+            failures.add(name + " scans a reservation table:\n" + plan);
+        }
+    }
+
+    private String explain(final String sql) {
+        var rows = jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                (resultSet, rowNum) -> resultSet.getString(1));
+
+        return String.join("\n", rows);
+    }
+
+    private static String firstWord(final String sql) {
+        var trimmed = sql.stripLeading().replaceFirst("^\\(+", "");
+        var end = trimmed.indexOf(' ');
+
+        return (end < 0 ? trimmed : trimmed.substring(0, end)).toLowerCase(Locale.ROOT);
+    }
+
+    private static BookingSearchRequest search(final Consumer<BookingSearchRequest> filter) {
+        var request = new BookingSearchRequest();
+        filter.accept(request);
+
+        return request;
+    }
+
+    private static Object sample(final Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && Collection.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+            return List.of(sample(parameterized.getActualTypeArguments()[0]));
+        }
+
+        var raw = (Class<?>) type;
+        if (raw == Long.class || raw == long.class) {
+            return 1L;
+        }
+        if (raw == Integer.class || raw == int.class) {
+            return 10;
+        }
+        if (raw == String.class) {
+            return "Miami, FL";
+        }
+        if (raw == LocalDateTime.class) {
+            return START;
+        }
+        if (raw == LocalDate.class) {
+            return START.toLocalDate();
+        }
+        if (raw.isEnum()) {
+            return raw.getEnumConstants()[0];
+        }
+        if (raw == Pageable.class) {
+            return PageRequest.of(0, 20, Sort.by("id"));
+        }
+        if (raw == ReservationSlot.class) {
+            return new ReservationSlot(ReservationKind.BOOKING, 1L, 1L, START, START.plusDays(2));
+        }
+
+        throw new IllegalArgumentException("No sample argument for " + type + ", add one to the harness");
+    }
+}
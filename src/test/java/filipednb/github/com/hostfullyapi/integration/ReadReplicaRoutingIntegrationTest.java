@@ -0,0 +1,169 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.replica.ReplicationLagMonitor;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routing against a second in-memory H2 database standing in for the replica. Nothing replicates into
+ * it: each test copies the primary there, then changes the primary behind the replica's back. Heartbeats
+ * are driven by the test, the scheduled ones are an hour apart.
+ */
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=" + ReadReplicaRoutingIntegrationTest.PRIMARY_URL,
+                "hostfully.datasource.replica.enabled=true",
+                "hostfully.datasource.replica.url=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+                "hostfully.datasource.replica.password=",
+                "hostfully.datasource.replica.max-staleness=10s",
+                "hostfully.datasource.replica.heartbeat-interval=1h",
+                "hostfully.datasource.replica.sticky-for=10s"
+        })
+@ActiveProfiles("test")
+class ReadReplicaRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicationLagMonitor monitor;
+
+    @TempDir
+    private Path tempDir;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private UserEntity alice;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        cleanUp();
+
+        alice = new UserEntity();
+        alice.setType(UserTypeEnum.GUEST);
+        alice.setName("Alice");
+        alice.setEmail("alice@dummy.com");
+        alice = userRepository.save(alice);
+
+        monitor.beat();
+        replicate();
+        monitor.beat();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testReadOnlyReadsGoToTheReplica() {
+        primary.update("UPDATE \"USER\" SET name = 'Alice on primary' WHERE id = ?", alice.getId());
+
+        assertTrue(monitor.isReplicaFresh());
+        given()
+        .when()
+            .get("/users/{id}", alice.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("name", is("Alice"));
+        given()
+        .when()
+            .get("/users")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("name", hasItem("Alice"));
+    }
+
+    @Test
+    void testStaleReplicaIsSkipped() {
+        primary.update("UPDATE \"USER\" SET name = 'Alice on primary' WHERE id = ?", alice.getId());
+        replica.update("UPDATE replica_heartbeat SET beat_at = ?", Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+
+        monitor.beat();
+
+        assertFalse(monitor.isReplicaFresh());
+        given()
+        .when()
+            .get("/users/{id}", alice.getId())
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("name", is("Alice on primary"));
+    }
+
+    @Test
+    void testClientReadsItsOwnWrites() {
+        var cookie = given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Bob\", \"email\": \"bob@dummy.com\", \"type\": \"GUEST\"}")
+        .when()
+            .post("/users")
+        .then()
+            .statusCode(HttpStatus.CREATED.value())
+            .cookie("hostfully-primary-reads", notNullValue())
+            .extract().cookie("hostfully-primary-reads");
+
+        assertEquals(2L, primary.queryForObject("SELECT COUNT(*) FROM \"USER\"", Long.class));
+        given()
+        .when()
+            .get("/users")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("$", hasSize(1));
+        given()
+            .cookie("hostfully-primary-reads", cookie)
+        .when()
+            .get("/users")
+        .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("$", hasSize(2))
+            .body("name", hasItem("Bob"));
+    }
+
+    /**
+     * Replication stand-in: the replica becomes a copy of the primary, heartbeat row included.
+     */
+    private void replicate() {
+        var script = tempDir.resolve("primary.sql").toString();
+        primary.execute("SCRIPT TO '" + script + "'");
+        replica.execute("DROP ALL OBJECTS");
+        replica.execute("RUNSCRIPT FROM '" + script + "'");
+    }
+}
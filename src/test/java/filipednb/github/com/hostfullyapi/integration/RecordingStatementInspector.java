@@ -0,0 +1,31 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the SQL Hibernate sends, for the tests that register it with
+ * hibernate.session_factory.statement_inspector. Public as Hibernate instantiates it by name.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(final String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    static List<String> drain() {
+        synchronized (STATEMENTS) {
+            var statements = List.copyOf(STATEMENTS);
+            STATEMENTS.clear();
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import filipednb.github.com.hostfullyapi.HostfullyapiApplication;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
+import filipednb.github.com.hostfullyapi.domain.user.UserRequest;
+import filipednb.github.com.hostfullyapi.domain.user.UserService;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import io.restassured.RestAssured;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = HostfullyapiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementCounter counter;
+
+    private UserEntity owner;
+
+    private PropertyEntity property;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        counter = new SqlStatementCounter(entityManagerFactory);
+        cleanUp();
+
+        owner = new UserEntity();
+        owner.setType(UserTypeEnum.OWNER);
+        owner.setName("Jack Spencer");
+        owner.setEmail("jack.spec@dummy.com");
+        owner = userRepository.save(owner);
+
+        property = new PropertyEntity();
+        property.setName("Ocean View Apartment");
+        property.setLocation("Miami, FL");
+        property.setOwner(owner);
+        property = propertyRepository.save(property);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        propertyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testCachedUserAndPropertyAreReadWithoutSql() {
+        var cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(UserEntity.class, owner.getId()));
+        assertTrue(cache.contains(PropertyEntity.class, property.getId()));
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var statements = counter.count(() -> {
+            userRepository.findById(owner.getId()).orElseThrow();
+            propertyRepository.findById(property.getId()).orElseThrow();
+        });
+
+        assertEquals(0, statements);
+        assertTrue(statistics.getDomainDataRegionStatistics("user").getHitCount() > 0);
+        assertTrue(statistics.getDomainDataRegionStatistics("property").getHitCount() > 0);
+    }
+
+    @Test
+    void testUserLookupQueryIsCached() {
+        var region = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getQueryRegionStatistics("user-by-id-and-type");
+        var puts = region.getPutCount();
+
+        userService.findByIdAndType(owner.getId(), UserTypeEnum.OWNER).orElseThrow();
+
+        assertEquals(puts + 1, region.getPutCount());
+    }
+
+    @Test
+    void testUpdateEvictsTheUser() {
+        var request = new UserRequest();
+        request.setType(UserTypeEnum.OWNER);
+        request.setName("Jack Spencer Jr");
+        request.setEmail("jack.jr@dummy.com");
+
+        userService.update(owner.getId(), request);
+
+        assertFalse(entityManagerFactory.getCache().contains(UserEntity.class, owner.getId()));
+        assertEquals("Jack Spencer Jr", userRepository.findById(owner.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testCacheStatisticsAreExposedAsMetrics() {
+        given()
+                .when()
+                .get("/actuator/metrics/hibernate.second.level.cache.requests")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("availableTags.tag", hasItem("result"));
+    }
+}
@@ -0,0 +1,37 @@
+package filipednb.github.com.hostfullyapi.integration;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the JDBC statements Hibernate prepares while an action runs, to catch N+1 loads on the
+ * endpoints. Statistics are global to the session factory, so the action must be the only database
+ * work in flight (a blocking HTTP call from the test thread is).
+ */
+final class SqlStatementCounter {
+
+    private final Statistics statistics;
+
+    SqlStatementCounter(final EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    long count(final Runnable action) {
+        var enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            action.run();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(enabled);
+        }
+    }
+
+    void assertStatements(final long expected, final String description, final Runnable action) {
+        assertEquals(expected, count(action), "SQL statements run by " + description);
+    }
+}
@@ -0,0 +1,82 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.BitsetCalendar;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot.toEpochSecond;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BitsetCalendarTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 0, 0);
+
+    private BitsetCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        TimeProvider.setMockTime(NOW);
+        calendar = new BitsetCalendar(365);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeProvider.resetMockTime();
+    }
+
+    private static ReservationSlot booking(final long id, final LocalDateTime start, final LocalDateTime end) {
+        return new ReservationSlot(ReservationKind.BOOKING, id, 1L, start, end);
+    }
+
+    private ReservationSlot find(final LocalDateTime start, final LocalDateTime end, final ReservationKind kind) {
+        return calendar.findFirstOverlap(toEpochSecond(start), toEpochSecond(end), kind);
+    }
+
+    @Test
+    void testFreeAndBusyDays() {
+        var booking = booking(1L, NOW.plusDays(3).withHour(15), NOW.plusDays(6).withHour(11));
+        calendar.insert(booking);
+
+        assertEquals(booking, find(NOW.plusDays(4), NOW.plusDays(5), null));
+        assertNull(find(NOW.plusDays(10), NOW.plusDays(20), null));
+        assertNull(find(NOW.plusDays(4), NOW.plusDays(5), ReservationKind.BLOCK));
+    }
+
+    @Test
+    void testSameDayCheckOutAndCheckInUsesExactHours() {
+        calendar.insert(booking(1L, NOW.plusDays(3).withHour(15), NOW.plusDays(6).withHour(11)));
+
+        assertNull(find(NOW.plusDays(6).withHour(15), NOW.plusDays(8).withHour(11), null));
+        assertNull(find(NOW.plusDays(1).withHour(15), NOW.plusDays(3).withHour(11), null));
+        assertEquals(1L, find(NOW.plusDays(6).withHour(10), NOW.plusDays(8), null).getId());
+    }
+
+    @Test
+    void testRemoveKeepsSharedDayOfOtherSlot() {
+        var first = booking(1L, NOW.plusDays(3).withHour(15), NOW.plusDays(6).withHour(11));
+        var second = booking(2L, NOW.plusDays(6).withHour(15), NOW.plusDays(8).withHour(11));
+        calendar.insert(first);
+        calendar.insert(second);
+
+        calendar.remove(first);
+
+        assertNull(find(NOW.plusDays(3), NOW.plusDays(6).withHour(12), null));
+        assertEquals(second, find(NOW.plusDays(6).withHour(12), NOW.plusDays(7), null));
+    }
+
+    @Test
+    void testBeyondHorizonFallsBackToExactSlots() {
+        var booking = booking(1L, NOW.plusDays(500), NOW.plusDays(505));
+        calendar.insert(booking);
+
+        assertEquals(booking, find(NOW.plusDays(502), NOW.plusDays(503), ReservationKind.BOOKING));
+        assertNull(find(NOW.plusDays(510), NOW.plusDays(515), null));
+    }
+}
@@ -0,0 +1,128 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
+import filipednb.github.com.hostfullyapi.domain.block.BlockImportInterval;
+import filipednb.github.com.hostfullyapi.domain.block.BlockImportWriter;
+import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlockImportWriterTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 0, 0);
+
+    @Mock
+    private BlockRepository repository;
+
+    @Mock
+    private PropertyService propertyService;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @InjectMocks
+    private BlockImportWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        var property = new PropertyEntity();
+        property.setId(10L);
+
+        when(propertyService.findLockedEntityById(10L)).thenReturn(Optional.of(property));
+        when(propertyService.findLockedEntityById(20L)).thenReturn(Optional.empty());
+        when(reservationService.findPeriods(eq(10L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        new ReservationSlot(ReservationKind.BLOCK, 5L, 10L, NOW.plusDays(3), NOW.plusDays(5)),
+                        new ReservationSlot(ReservationKind.BOOKING, 6L, 10L, NOW.plusDays(20), NOW.plusDays(22))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMergesRowsAndLeavesOutWhatIsAlreadyBlocked() {
+        var chunk = new TreeMap<Long, List<BlockImportInterval>>();
+        chunk.put(10L, new ArrayList<>(List.of(
+                interval(1, 10L, 1, 4),
+                interval(2, 10L, 4, 7),
+                interval(3, 10L, 3, 5),
+                interval(4, 10L, 21, 23))));
+        chunk.put(20L, List.of(interval(5, 20L, 1, 2)));
+
+        var result = writer.write(chunk, 100);
+
+        ArgumentCaptor<List<BlockEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        var blocks = saved.getValue();
+
+        assertEquals(2, result.getCreated());
+        assertEquals(2, blocks.size());
+        assertEquals(NOW.plusDays(1), blocks.get(0).getStartDate());
+        assertEquals(NOW.plusDays(3), blocks.get(0).getEndDate());
+        assertEquals(NOW.plusDays(5), blocks.get(1).getStartDate());
+        assertEquals(NOW.plusDays(7), blocks.get(1).getEndDate());
+        assertEquals(2, result.getRejected());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertEquals("Overlaps an existing booking", result.getErrors().get(0).getMessage());
+        assertEquals("Property not found", result.getErrors().get(1).getMessage());
+        verify(reservationService, times(1)).findPeriods(eq(10L), eq(NOW.plusDays(1)), eq(NOW.plusDays(23)));
+        verify(reservationService, times(2)).register(any(ReservationSlot.class));
+    }
+
+    @Test
+    void testPeriodAlreadyBlockedCreatesNothing() {
+        var chunk = new TreeMap<Long, List<BlockImportInterval>>();
+        chunk.put(10L, List.of(interval(1, 10L, 3, 5)));
+
+        var result = writer.write(chunk, 100);
+
+        assertEquals(0, result.getCreated());
+        assertEquals(1, result.getAlreadyBlocked());
+        verify(reservationService, times(0)).register(any(ReservationSlot.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPartsShorterThanADayAreLeftOutAndReported() {
+        var chunk = new TreeMap<Long, List<BlockImportInterval>>();
+        chunk.put(10L, List.of(new BlockImportInterval(1, 1, 10L, NOW.plusDays(2).plusHours(12), NOW.plusDays(7))));
+
+        var result = writer.write(chunk, 100);
+
+        ArgumentCaptor<List<BlockEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+
+        assertEquals(1, result.getCreated());
+        assertEquals(NOW.plusDays(5), saved.getValue().get(0).getStartDate());
+        assertEquals(1, result.getTooShort());
+        assertEquals(0, result.getRejected());
+        assertEquals(1, result.getErrors().get(0).getLine());
+        verify(reservationService, times(1)).register(any(ReservationSlot.class));
+    }
+
+    private static BlockImportInterval interval(final int line, final Long propertyId, final int fromDay, final int toDay) {
+        return new BlockImportInterval(line, 1, propertyId, NOW.plusDays(fromDay), NOW.plusDays(toDay));
+    }
+}
@@ -8,7 +8,9 @@ import filipednb.github.com.hostfullyapi.domain.block.BlockResponse;
 import filipednb.github.com.hostfullyapi.domain.block.BlockService;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
 import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
 import filipednb.github.com.hostfullyapi.exception.PropertyBlockedException;
 import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -25,6 +28,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,6 +57,10 @@ class BlockServiceTest {
         TimeProvider.setMockTime(fixedTime);
     }
 
+    private static Optional<ReservationSlot> conflict(final ReservationKind kind) {
+        return Optional.of(new ReservationSlot(kind, 1L, 1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
     @Test
     void testCreateBlock_PropertyNotFound() {
         var request = new BlockRequest();
@@ -77,8 +85,8 @@ class BlockServiceTest {
         propertyEntity.setId(1L);
 
         when(propertyService.findEntityById(any(Long.class))).thenReturn(propertyEntity);
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BLOCK));
 
         assertThrows(PropertyBlockedException.class, () ->
                 blockService.createBlock(request));
@@ -95,15 +103,35 @@ class BlockServiceTest {
         propertyEntity.setId(1L);
 
         when(propertyService.findEntityById(any(Long.class))).thenReturn(propertyEntity);
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BOOKING));
 
         assertThrows(PropertyBusyException.class, () ->
                 blockService.createBlock(request));
     }
 
+    @Test
+    void testCreateBlock_DaysAlreadyClaimedByBlock() {
+        var request = new BlockRequest();
+        request.setPropertyId(1L);
+        request.setStartDate(LocalDateTime.now());
+        request.setEndDate(LocalDateTime.now().plusDays(1));
+
+        PropertyEntity propertyEntity = new PropertyEntity();
+        propertyEntity.setId(1L);
+
+        when(propertyService.findEntityById(any(Long.class))).thenReturn(propertyEntity);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
+        when(blockRepository.save(any(BlockEntity.class))).thenReturn(new BlockEntity());
+        doThrow(new DataIntegrityViolationException("uk_day_claim_property_date"))
+                .when(reservationService).register(any(ReservationSlot.class));
+        when(reservationService.findClaimHolder(any(ReservationSlot.class))).thenReturn(ReservationKind.BLOCK);
+
+        assertThrows(PropertyBlockedException.class, () ->
+                blockService.createBlock(request));
+    }
+
     @Test
     void testCreateBlock_Success() {
         var request = new BlockRequest();
@@ -115,10 +143,8 @@ class BlockServiceTest {
         propertyEntity.setId(1L);
 
         when(propertyService.findEntityById(any(Long.class))).thenReturn(propertyEntity);
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
         when(blockRepository.save(any(BlockEntity.class))).thenReturn(new BlockEntity());
         when(blockMapper.toResponse(any(BlockEntity.class))).thenReturn(new BlockResponse());
 
@@ -155,10 +181,8 @@ class BlockServiceTest {
         existingBlock.setProperty(propertyEntity);
 
         when(blockRepository.findById(any(Long.class))).thenReturn(Optional.of(existingBlock));
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BOOKING));
 
         assertThrows(PropertyBusyException.class, () -> blockService.updateBlock(1L, blockRequest));
     }
@@ -177,10 +201,8 @@ class BlockServiceTest {
         existingBlock.setId(1L);
 
         when(blockRepository.findById(any(Long.class))).thenReturn(Optional.of(existingBlock));
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
         when(blockRepository.save(any(BlockEntity.class))).thenReturn(existingBlock);
 
         var updatedBlock = blockService.updateBlock(1L, blockRequest);
@@ -0,0 +1,158 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchItemStatusEnum;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchModeEnum;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingBatchService;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingMapper;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingResponse;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
+import filipednb.github.com.hostfullyapi.domain.user.UserService;
+import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingBatchServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 0, 0);
+
+    @Mock
+    private BookingMapper mapper;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PropertyService propertyService;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private Validator validator;
+
+    @InjectMocks
+    private BookingBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TimeProvider.setMockTime(NOW);
+
+        var guest = new UserEntity();
+        guest.setId(1L);
+        var property = new PropertyEntity();
+        property.setId(10L);
+
+        when(userService.findAllByIdsAndType(anySet(), eq(UserTypeEnum.GUEST))).thenReturn(Map.of(1L, guest));
+        when(propertyService.findLockedEntityById(10L)).thenReturn(Optional.of(property));
+        when(propertyService.findLockedEntityById(20L)).thenReturn(Optional.empty());
+        when(reservationService.findPeriods(eq(10L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(new ReservationSlot(ReservationKind.BLOCK, 5L, 10L, NOW.plusDays(20), NOW.plusDays(22))));
+        when(mapper.toResponse(any(BookingEntity.class))).thenReturn(new BookingResponse());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeProvider.resetMockTime();
+    }
+
+    @Test
+    void testPartialModeCreatesValidItemsAndReportsTheOthers() {
+        var request = batch(BookingBatchModeEnum.PARTIAL,
+                item(10L, 1, 3),
+                item(10L, 2, 4),
+                item(10L, 21, 25),
+                item(20L, 1, 3),
+                item(10L, 5, 7));
+
+        var response = batchService.createBookings(request);
+
+        assertEquals(2, response.getCreated());
+        assertEquals(3, response.getRejected());
+        assertEquals(BookingBatchItemStatusEnum.CREATED, response.getItems().get(0).getStatus());
+        assertEquals(BookingBatchItemStatusEnum.CONFLICT, response.getItems().get(1).getStatus());
+        assertEquals("Overlaps item 0 of the same batch", response.getItems().get(1).getMessage());
+        assertEquals("The property was blocked by the owner in the same period", response.getItems().get(2).getMessage());
+        assertEquals(BookingBatchItemStatusEnum.INVALID, response.getItems().get(3).getStatus());
+        assertEquals(BookingBatchItemStatusEnum.CREATED, response.getItems().get(4).getStatus());
+        verify(reservationService, times(1)).findPeriods(eq(10L), eq(NOW.plusDays(1)), eq(NOW.plusDays(25)));
+        verify(bookingRepository).saveAllAndFlush(anyList());
+        verify(reservationService, times(2)).register(any(ReservationSlot.class));
+    }
+
+    @Test
+    void testAllOrNothingModeCreatesNothingWhenAnItemFails() {
+        var request = batch(BookingBatchModeEnum.ALL_OR_NOTHING,
+                item(10L, 1, 3),
+                item(10L, 21, 25));
+
+        var response = batchService.createBookings(request);
+
+        assertEquals(0, response.getCreated());
+        assertEquals(1, response.getRejected());
+        assertEquals(BookingBatchItemStatusEnum.ABORTED, response.getItems().get(0).getStatus());
+        assertEquals(BookingBatchItemStatusEnum.CONFLICT, response.getItems().get(1).getStatus());
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+        verify(reservationService, never()).register(any(ReservationSlot.class));
+    }
+
+    @Test
+    void testUnknownGuestIsInvalid() {
+        var unknownGuest = item(10L, 1, 3);
+        unknownGuest.setGuestId(2L);
+
+        var response = batchService.createBookings(batch(BookingBatchModeEnum.PARTIAL, unknownGuest));
+
+        assertEquals(BookingBatchItemStatusEnum.INVALID, response.getItems().get(0).getStatus());
+        assertEquals("Guest not found", response.getItems().get(0).getMessage());
+    }
+
+    private static BookingBatchRequest batch(final BookingBatchModeEnum mode, final BookingRequest... items) {
+        var request = new BookingBatchRequest();
+        request.setMode(mode);
+        request.setBookings(List.of(items));
+        return request;
+    }
+
+    private static BookingRequest item(final Long propertyId, final int fromDay, final int toDay) {
+        var request = new BookingRequest();
+        request.setGuestId(1L);
+        request.setPropertyId(propertyId);
+        request.setCheckInDate(NOW.plusDays(fromDay));
+        request.setCheckOutDate(NOW.plusDays(toDay));
+        return request;
+    }
+}
@@ -3,13 +3,20 @@ package filipednb.github.com.hostfullyapi.unit;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationPeriodView;
 import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingMapper;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingResponse;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRow;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingSearchRepository;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingSearchRequest;
 import filipednb.github.com.hostfullyapi.domain.booking.BookingService;
+import filipednb.github.com.hostfullyapi.exception.BadRequestException;
 import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
 import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
@@ -19,16 +26,25 @@ import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
 import filipednb.github.com.hostfullyapi.utils.TimeProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +66,9 @@ class BookingServiceTest {
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private BookingSearchRepository searchRepository;
+
     private BookingService bookingService;
 
     @BeforeEach
@@ -59,11 +78,16 @@ class BookingServiceTest {
                 userService,
                 propertyService,
                 bookingRepository,
-                reservationService);
+                reservationService,
+                searchRepository);
         LocalDateTime fixedTime = LocalDateTime.of(2024, 6, 15, 0, 0);
         TimeProvider.setMockTime(fixedTime);
     }
 
+    private static Optional<ReservationSlot> conflict(final ReservationKind kind) {
+        return Optional.of(new ReservationSlot(kind, 1L, 1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
     @Test
     void testCreateBooking() {
         BookingRequest bookingRequest = new BookingRequest();
@@ -80,11 +104,8 @@ class BookingServiceTest {
         when(propertyService.findEntityById(eq(1L)))
                 .thenReturn(propertyEntity);
 
-        when(reservationService.existsBookingOnDate(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-
-        when(reservationService.isPropertyBlockedOnDate(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
 
         when(bookingMapper.toResponse(any(BookingEntity.class)))
                 .thenReturn(new BookingResponse());
@@ -94,8 +115,9 @@ class BookingServiceTest {
 
         bookingService.createBooking(bookingRequest);
 
-        verify(reservationService, times(1)).existsBookingOnDate(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
-        verify(reservationService, times(1)).isPropertyBlockedOnDate(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(reservationService, times(1)).findConflict(any(PropertyEntity.class), any(LocalDateTime.class), any(LocalDateTime.class),
+                eq(ReservationKind.BOOKING));
+        verify(reservationService, times(1)).register(any(ReservationSlot.class));
         verify(bookingMapper, times(1)).toEntity(any(BookingRequest.class));
         verify(bookingMapper, times(1)).toResponse(any(BookingEntity.class));
         verify(bookingRepository, times(1)).save(any(BookingEntity.class));
@@ -115,11 +137,8 @@ class BookingServiceTest {
         when(propertyService.findEntityById(eq(1L)))
                 .thenReturn(propertyEntity);
 
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
-
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BOOKING));
 
         when(userService.findByIdAndType(any(Long.class), any(UserTypeEnum.class)))
                 .thenReturn(Optional.of(new UserEntity()));
@@ -141,11 +160,8 @@ class BookingServiceTest {
         when(propertyService.findEntityById(eq(1L)))
                 .thenReturn(propertyEntity);
 
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BLOCK));
 
         when(userService.findByIdAndType(any(Long.class), any(UserTypeEnum.class)))
                 .thenReturn(Optional.of(new UserEntity()));
@@ -154,18 +170,44 @@ class BookingServiceTest {
     }
 
     @Test
-    void testCreateBookingWhenUserIsNotFound() {
+    void testCreateBookingWhenNightIsAlreadyClaimedByBlock() {
         BookingRequest bookingRequest = new BookingRequest();
         bookingRequest.setGuestId(1L);
         bookingRequest.setPropertyId(1L);
         bookingRequest.setCheckInDate(LocalDateTime.of(2024, 6, 15, 0, 0));
         bookingRequest.setCheckOutDate(LocalDateTime.of(2024, 6, 20, 0, 0));
 
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        PropertyEntity propertyEntity = new PropertyEntity();
+        propertyEntity.setId(1L);
+
+        when(propertyService.findEntityById(eq(1L)))
+                .thenReturn(propertyEntity);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
+        when(userService.findByIdAndType(any(Long.class), any(UserTypeEnum.class)))
+                .thenReturn(Optional.of(new UserEntity()));
+        when(bookingMapper.toEntity(any(BookingRequest.class)))
+                .thenReturn(new BookingEntity());
+        doThrow(new DataIntegrityViolationException("uk_day_claim_property_date"))
+                .when(reservationService).register(any(ReservationSlot.class));
+        when(reservationService.findClaimHolder(any(ReservationSlot.class)))
+                .thenReturn(ReservationKind.BLOCK);
+
+        var exception = assertThrows(PropertyBusyException.class, () -> bookingService.createBooking(bookingRequest));
+
+        assertEquals("The property was blocked by the owner in the same period", exception.getMessage());
+    }
+
+    @Test
+    void testCreateBookingWhenUserIsNotFound() {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setGuestId(1L);
+        bookingRequest.setPropertyId(1L);
+        bookingRequest.setCheckInDate(LocalDateTime.of(2024, 6, 15, 0, 0));
+        bookingRequest.setCheckOutDate(LocalDateTime.of(2024, 6, 20, 0, 0));
 
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(true);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(conflict(ReservationKind.BOOKING));
 
         when(userService.existsByIdAndType(any(Long.class), any(UserTypeEnum.class)))
                 .thenReturn(Optional.of(false));
@@ -213,10 +255,8 @@ class BookingServiceTest {
         when(bookingRepository.findById(eq(1L))).thenReturn(Optional.of(bookingEntity));
         when(userService.findByIdAndType(eq(1L), eq(UserTypeEnum.GUEST)))
                 .thenReturn(Optional.of(guest));
-        when(reservationService.existsBookingOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
-        when(reservationService.isPropertyBlockedOnDate(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(false);
+        when(reservationService.findConflict(any(), any(LocalDateTime.class), any(LocalDateTime.class), any(ReservationKind.class)))
+                .thenReturn(Optional.empty());
         when(bookingRepository.save(any(BookingEntity.class))).thenReturn(bookingEntity);
         when(bookingMapper.toResponse(any(BookingEntity.class))).thenReturn(new BookingResponse());
 
@@ -256,4 +296,103 @@ class BookingServiceTest {
 
         assertThrows(ResourceNotFoundException.class, () -> bookingService.deleteBooking(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCancelBookingsUpdatesInOneStatementAndReleasesThem() {
+        var from = LocalDateTime.of(2024, 7, 1, 0, 0);
+        var to = LocalDateTime.of(2024, 8, 1, 0, 0);
+        var periods = List.of(period(3L, from, from.plusDays(2)), period(4L, from.plusDays(5), from.plusDays(9)));
+
+        when(bookingRepository.findPeriodsByPropertyIdAndStatusInRange(1L, BookingStatusEnum.ACTIVE, from, to)).thenReturn(periods);
+        when(bookingRepository.updateStatusByPropertyIdInRange(1L, BookingStatusEnum.ACTIVE, BookingStatusEnum.CANCELLED, from, to))
+                .thenReturn(2);
+
+        var response = bookingService.cancelBookings(1L, from, to);
+
+        assertEquals(2, response.getCancelled());
+        assertEquals(List.of(3L, 4L), response.getBookingIds());
+        verify(propertyService).findEntityById(1L);
+        verify(reservationService).releaseAll(List.of(
+                new ReservationSlot(ReservationKind.BOOKING, 3L, 1L, from, from.plusDays(2)),
+                new ReservationSlot(ReservationKind.BOOKING, 4L, 1L, from.plusDays(5), from.plusDays(9))));
+    }
+
+    @Test
+    void testCancelBookingsFailsWhenTheSetChangedConcurrently() {
+        var from = LocalDateTime.of(2024, 7, 1, 0, 0);
+        var to = LocalDateTime.of(2024, 8, 1, 0, 0);
+
+        when(bookingRepository.findPeriodsByPropertyIdAndStatusInRange(1L, BookingStatusEnum.ACTIVE, from, to))
+                .thenReturn(List.of(period(3L, from, from.plusDays(2))));
+        when(bookingRepository.updateStatusByPropertyIdInRange(1L, BookingStatusEnum.ACTIVE, BookingStatusEnum.CANCELLED, from, to))
+                .thenReturn(2);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.cancelBookings(1L, from, to));
+        verify(reservationService, never()).releaseAll(anyList());
+    }
+
+    private static ReservationPeriodView period(final Long id, final LocalDateTime start, final LocalDateTime end) {
+        return new ReservationPeriodView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getStartDate() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return end;
+            }
+        };
+    }
+
+    @Test
+    void testFindPageReadsOneExtraRowForTheNextCursor() {
+        var search = new BookingSearchRequest();
+        search.setSize(2);
+        var bookings = List.of(booking(1L, 1), booking(2L, 1), booking(3L, 2));
+
+        when(searchRepository.findPage(eq(search), isNull(), eq(3))).thenReturn(bookings);
+
+        var page = bookingService.findPage(search);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("Jonah Clement", page.getItems().get(0).getGuest().getName());
+        assertEquals(4L, page.getItems().get(0).getProperty().getOwner().getId());
+        assertNotNull(page.getNextCursor());
+
+        search.setCursor(page.getNextCursor());
+        when(searchRepository.findPage(eq(search), any(), eq(3))).thenReturn(List.of(bookings.get(2)));
+
+        var last = bookingService.findPage(search);
+
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testFindPageRejectsInvalidCursorAndSize() {
+        var search = new BookingSearchRequest();
+        search.setCursor("not a cursor");
+
+        assertThrows(BadRequestException.class, () -> bookingService.findPage(search));
+
+        search.setCursor(null);
+        search.setSize(501);
+
+        assertThrows(BadRequestException.class, () -> bookingService.findPage(search));
+    }
+
+    private static BookingRow booking(final Long id, final int day) {
+        var checkIn = LocalDateTime.of(2024, 7, day, 15, 0);
+
+        return new BookingRow(id, checkIn, checkIn.plusDays(1), BookingStatusEnum.ACTIVE,
+                2L, "Jonah Clement", "jonah.cle@yahoo.com", UserTypeEnum.GUEST,
+                3L, "Ocean View Apartment", "Miami, FL",
+                4L, "Jack Spencer", "jack.spec@dummy.com", UserTypeEnum.OWNER);
+    }
+}
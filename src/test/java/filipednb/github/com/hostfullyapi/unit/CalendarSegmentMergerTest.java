@@ -0,0 +1,59 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarSegment;
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarSegmentMerger;
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarStatusEnum;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CalendarSegmentMergerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 7, 1, 0, 0);
+
+    private static final LocalDateTime TO = FROM.plusDays(30);
+
+    private static ReservationSlot slot(final ReservationKind kind, final int fromDay, final int toDay) {
+        return new ReservationSlot(kind, 1L, 1L, FROM.plusDays(fromDay), FROM.plusDays(toDay));
+    }
+
+    private static CalendarSegment segment(final CalendarStatusEnum status, final int fromDay, final int toDay) {
+        return new CalendarSegment(status, FROM.plusDays(fromDay), FROM.plusDays(toDay));
+    }
+
+    @Test
+    void testMergesOverlappingAndTouchingSlotsAndEmitsGaps() {
+        List<CalendarSegment> segments = new ArrayList<>();
+        var merger = new CalendarSegmentMerger(FROM, TO, segments::add);
+
+        merger.accept(slot(ReservationKind.BLOCK, -5, 2));
+        merger.accept(slot(ReservationKind.BOOKING, 5, 8));
+        merger.accept(slot(ReservationKind.BLOCK, 6, 10));
+        merger.accept(slot(ReservationKind.BOOKING, 10, 12));
+        merger.accept(slot(ReservationKind.BOOKING, 28, 40));
+        merger.finish();
+
+        assertEquals(List.of(
+                segment(CalendarStatusEnum.BUSY, 0, 2),
+                segment(CalendarStatusEnum.FREE, 2, 5),
+                segment(CalendarStatusEnum.BUSY, 5, 12),
+                segment(CalendarStatusEnum.FREE, 12, 28),
+                segment(CalendarStatusEnum.BUSY, 28, 30)), segments);
+    }
+
+    @Test
+    void testEmptyCalendarIsOneFreeSegment() {
+        List<CalendarSegment> segments = new ArrayList<>();
+        var merger = new CalendarSegmentMerger(FROM, TO, segments::add);
+
+        merger.finish();
+
+        assertEquals(List.of(segment(CalendarStatusEnum.FREE, 0, 30)), segments);
+    }
+}
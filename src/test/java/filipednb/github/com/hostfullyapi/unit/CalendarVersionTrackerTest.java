@@ -0,0 +1,112 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.AvailabilityIndex;
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarVersionTracker;
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyProjection;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.exception.PropertyBlockedException;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CalendarVersionTrackerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 7, 1, 15, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private OccupancyProjection occupancyProjection;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @InjectMocks
+    private CalendarVersionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(tracker, "verifyAtCommit", true);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testReadModelIsWrittenAtCommitAfterThePropertyLock() {
+        var previous = slot(3L, START, START.plusDays(2));
+        var moved = slot(3L, START.plusDays(5), START.plusDays(7));
+        when(reservationRepository.streamPeriods(any(), any(), any())).thenReturn(Stream.empty());
+
+        tracker.removed(previous);
+        tracker.added(moved);
+
+        verify(reservationRepository, never()).incrementCalendarVersion(any());
+        verify(occupancyProjection, never()).removeAll(any());
+
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        var order = inOrder(reservationRepository, occupancyProjection);
+        order.verify(reservationRepository).incrementCalendarVersion(1L);
+        order.verify(reservationRepository).streamPeriods(1L, START.plusDays(5), START.plusDays(7));
+        order.verify(occupancyProjection).removeAll(List.of(previous));
+        order.verify(occupancyProjection).add(moved);
+        order.verify(occupancyProjection).refresh(1L);
+    }
+
+    @Test
+    void testOverlapFoundAtCommitIsRejected() {
+        when(reservationRepository.streamPeriods(any(), any(), any()))
+                .thenReturn(Stream.of(new ReservationSlot(ReservationKind.BLOCK, 9L, 1L, START.plusDays(1), START.plusDays(3))));
+
+        tracker.added(slot(3L, START, START.plusDays(2)));
+
+        assertThrows(PropertyBusyException.class, () -> TransactionSynchronizationUtils.triggerBeforeCommit(false));
+        verify(availabilityIndex).evict(1L);
+        verify(occupancyProjection, never()).add(any());
+    }
+
+    @Test
+    void testBlockOverlapFoundAtCommitGetsTheBlockServiceError() {
+        when(reservationRepository.streamPeriods(any(), any(), any()))
+                .thenReturn(Stream.of(new ReservationSlot(ReservationKind.BLOCK, 9L, 1L, START.plusDays(1), START.plusDays(3))));
+
+        tracker.added(new ReservationSlot(ReservationKind.BLOCK, 3L, 1L, START, START.plusDays(2)));
+
+        var exception = assertThrows(PropertyBlockedException.class,
+                () -> TransactionSynchronizationUtils.triggerBeforeCommit(false));
+        assertEquals("Property is already blocked on this date range", exception.getMessage());
+    }
+
+    private static ReservationSlot slot(final Long id, final LocalDateTime start, final LocalDateTime end) {
+        return new ReservationSlot(ReservationKind.BOOKING, id, 1L, start, end);
+    }
+}
@@ -0,0 +1,78 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.block.ICalendarReader;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ICalendarReaderTest {
+
+    @Test
+    void testReadsDatesTimesAndFoldedLines() {
+        var feed = ICalendarReader.read(1L, stream("BEGIN:VCALENDAR\r\n"
+                + "VERSION:2.0\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:20300105\r\n"
+                + "DTEND;VALUE=DATE:20300108\r\n"
+                + "SUMMARY:Maintenance of the\r\n"
+                + " swimming pool\r\n"
+                + "END:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "DTSTART;TZID=Europe/Paris:20300110T140000\r\n"
+                + "DTEND:20300112T\r\n"
+                + " 110000Z\r\n"
+                + "END:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "DTSTART;VALUE=DATE:20300120\r\n"
+                + "END:VEVENT\r\n"
+                + "END:VCALENDAR\r\n"));
+
+        assertEquals(3, feed.getEvents());
+        assertEquals(3, feed.getPeriods().size());
+        assertEquals(LocalDateTime.of(2030, 1, 5, 0, 0), feed.getPeriods().get(0).getStartDate());
+        assertEquals(LocalDateTime.of(2030, 1, 8, 0, 0), feed.getPeriods().get(0).getEndDate());
+        assertEquals(LocalDateTime.of(2030, 1, 10, 14, 0), feed.getPeriods().get(1).getStartDate());
+        assertEquals(LocalDateTime.of(2030, 1, 12, 11, 0), feed.getPeriods().get(1).getEndDate());
+        assertEquals(LocalDateTime.of(2030, 1, 21, 0, 0), feed.getPeriods().get(2).getEndDate());
+        assertEquals(1L, feed.getPeriods().get(0).getPropertyId());
+    }
+
+    @Test
+    void testReportsInvalidEventsAndSkipsCancelledOnes() {
+        var feed = ICalendarReader.read(1L, stream("BEGIN:VCALENDAR\n"
+                + "BEGIN:VEVENT\n"
+                + "DTSTART:20300110T140000\n"
+                + "END:VEVENT\n"
+                + "BEGIN:VEVENT\n"
+                + "DTSTART:20300110\n"
+                + "DTEND:20300109\n"
+                + "END:VEVENT\n"
+                + "BEGIN:VEVENT\n"
+                + "STATUS:CANCELLED\n"
+                + "DTSTART:20300110\n"
+                + "END:VEVENT\n"
+                + "END:VCALENDAR\n"));
+
+        assertEquals(3, feed.getEvents());
+        assertEquals(0, feed.getPeriods().size());
+        assertEquals(2, feed.getErrors().size());
+        assertEquals(2, feed.getErrors().get(0).getLine());
+        assertEquals("DTEND is mandatory for events with a time", feed.getErrors().get(0).getMessage());
+        assertEquals("The event must end after it starts", feed.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void testRejectsBodyThatIsNotACalendar() {
+        assertThrows(BusinessRuleException.class, () -> ICalendarReader.read(1L, stream("propertyId,startDate,endDate\n")));
+    }
+
+    private static ByteArrayInputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
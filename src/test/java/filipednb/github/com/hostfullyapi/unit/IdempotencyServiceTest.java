@@ -0,0 +1,192 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingRequest;
+import filipednb.github.com.hostfullyapi.domain.booking.BookingResponse;
+import filipednb.github.com.hostfullyapi.exception.BusinessRuleException;
+import filipednb.github.com.hostfullyapi.idempotency.IdempotencyRecordEntity;
+import filipednb.github.com.hostfullyapi.idempotency.IdempotencyRecordRepository;
+import filipednb.github.com.hostfullyapi.idempotency.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+
+    private BookingRequest request;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(repository, new ObjectMapper().findAndRegisterModules(),
+                100, Duration.ofHours(24), Duration.ofSeconds(5));
+
+        request = new BookingRequest();
+        request.setPropertyId(1L);
+        request.setGuestId(2L);
+        request.setCheckInDate(LocalDateTime.of(2024, 7, 1, 15, 0));
+        request.setCheckOutDate(LocalDateTime.of(2024, 7, 4, 11, 0));
+    }
+
+    @Test
+    void testWithoutKeyAlwaysRuns() {
+        var runs = new AtomicInteger();
+
+        idempotencyService.execute("POST /bookings", null, request, BookingResponse.class, () -> created(runs.incrementAndGet()));
+        idempotencyService.execute("POST /bookings", null, request, BookingResponse.class, () -> created(runs.incrementAndGet()));
+
+        assertEquals(2, runs.get());
+        verify(repository, never()).insertPending(any(), any(), any());
+    }
+
+    @Test
+    void testRetryIsReplayed() {
+        var runs = new AtomicInteger();
+
+        var first = idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class,
+                () -> created(runs.incrementAndGet()));
+        var retry = idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class,
+                () -> created(runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals(201, retry.getStatusCode().value());
+        assertEquals(first.getBody().getId(), retry.getBody().getId());
+        assertEquals(first.getHeaders().getLocation(), retry.getHeaders().getLocation());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repository, times(1)).insertPending(eq("POST /bookings key-1"), any(), any());
+        verify(repository, times(1)).complete(eq("POST /bookings key-1"), eq(201), eq("/bookings/1"), any(), any());
+    }
+
+    @Test
+    void testKeyReusedWithAnotherRequestIsRejected() {
+        idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> created(1));
+
+        request.setGuestId(3L);
+
+        assertThrows(BusinessRuleException.class, () ->
+                idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> created(2)));
+    }
+
+    @Test
+    void testFailedRequestIsNotStored() {
+        assertThrows(IllegalStateException.class, () ->
+                idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> {
+                    throw new IllegalStateException("Database unavailable");
+                }));
+
+        verify(repository).deletePending("POST /bookings key-1");
+
+        var retry = idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> created(1));
+
+        assertEquals(1L, retry.getBody().getId());
+    }
+
+    @Test
+    void testResponseThatCannotBeStoredReleasesTheKey() {
+        doThrow(new IllegalStateException("Database unavailable"))
+                .when(repository).complete(eq("POST /bookings key-1"), eq(201), any(), any(), any());
+
+        assertThrows(IllegalStateException.class, () ->
+                idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> created(1)));
+
+        verify(repository).deletePending("POST /bookings key-1");
+    }
+
+    @Test
+    void testKeyClaimedOnAnotherNodeIsReplayedOnceCompleted() throws Exception {
+        var record = new IdempotencyRecordEntity();
+        record.setKey("POST /bookings key-1");
+        record.setStatusCode(201);
+        record.setLocation("/bookings/7");
+        record.setResponseBody("{\"id\":7}");
+        record.setCreatedAt(LocalDateTime.now());
+        record.setRequestHash(hash(request));
+
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).insertPending(eq("POST /bookings key-1"), any(), any());
+        when(repository.findStatusCode("POST /bookings key-1"))
+                .thenReturn(Optional.of(IdempotencyRecordEntity.PENDING), Optional.of(201));
+        when(repository.findCompleted("POST /bookings key-1")).thenReturn(Optional.empty(), Optional.of(record));
+
+        var runs = new AtomicInteger();
+        var response = idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class,
+                () -> created(runs.incrementAndGet()));
+
+        assertEquals(0, runs.get());
+        assertEquals(7L, response.getBody().getId());
+        assertEquals("true", response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testConcurrentDuplicateWaitsForFirstRequest() throws Exception {
+        var runs = new AtomicInteger();
+        var running = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class, () -> {
+                    running.countDown();
+                    try {
+                        assertTrue(release.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return created(runs.incrementAndGet());
+                }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        var duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("POST /bookings", "key-1", request, BookingResponse.class,
+                        () -> created(runs.incrementAndGet())));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).getBody().getId());
+        assertEquals(1L, duplicate.get(5, TimeUnit.SECONDS).getBody().getId());
+        assertEquals(1, runs.get());
+    }
+
+    private String hash(final Object value) throws Exception {
+        var json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(value);
+
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+    }
+
+    private static ResponseEntity<BookingResponse> created(final long id) {
+        var response = new BookingResponse();
+        response.setId(id);
+
+        return ResponseEntity.created(URI.create("/bookings/" + id)).body(response);
+    }
+}
@@ -0,0 +1,104 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.IntervalTree;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot.toEpochSecond;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 15, 14, 0);
+
+    private IntervalTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new IntervalTree();
+    }
+
+    private static ReservationSlot slot(final ReservationKind kind, final long id, final int fromDay, final int toDay) {
+        return new ReservationSlot(kind, id, 1L, BASE.plusDays(fromDay), BASE.plusDays(toDay));
+    }
+
+    private ReservationSlot find(final int fromDay, final int toDay, final ReservationKind kind) {
+        return tree.findFirstOverlap(toEpochSecond(BASE.plusDays(fromDay)), toEpochSecond(BASE.plusDays(toDay)), kind);
+    }
+
+    @Test
+    void testFindFirstOverlap() {
+        var booking = slot(ReservationKind.BOOKING, 1L, 2, 5);
+        var block = slot(ReservationKind.BLOCK, 2L, 10, 12);
+        tree.insert(booking);
+        tree.insert(block);
+
+        assertEquals(booking, find(4, 6, null));
+        assertEquals(block, find(11, 20, null));
+        assertNull(find(5, 10, null));
+        assertNull(find(0, 2, null));
+    }
+
+    @Test
+    void testFindFirstOverlapFiltersByKind() {
+        tree.insert(slot(ReservationKind.BOOKING, 1L, 2, 5));
+        tree.insert(slot(ReservationKind.BLOCK, 2L, 6, 8));
+
+        assertNull(find(0, 5, ReservationKind.BLOCK));
+        assertEquals(2L, find(0, 7, ReservationKind.BLOCK).getId());
+        assertEquals(1L, find(0, 7, ReservationKind.BOOKING).getId());
+    }
+
+    @Test
+    void testRemove() {
+        var booking = slot(ReservationKind.BOOKING, 1L, 2, 5);
+        tree.insert(booking);
+
+        assertFalse(tree.remove(slot(ReservationKind.BOOKING, 1L, 2, 6)));
+        assertTrue(tree.remove(booking));
+        assertTrue(tree.isEmpty());
+        assertNull(find(0, 10, null));
+    }
+
+    @Test
+    void testManySlotsStayBalancedAndSearchable() {
+        for (int i = 0; i < 1_000; i++) {
+            tree.insert(slot(ReservationKind.BOOKING, i, i * 2, i * 2 + 1));
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            tree.remove(slot(ReservationKind.BOOKING, i, i * 2, i * 2 + 1));
+        }
+
+        assertEquals(500, tree.size());
+        assertNull(find(0, 1, null));
+        assertEquals(1L, find(2, 3, null).getId());
+
+        List<ReservationSlot> visited = new ArrayList<>();
+        tree.forEachOverlap(toEpochSecond(BASE), toEpochSecond(BASE.plusDays(10)), visited::add);
+        assertEquals(List.of(1L, 3L), visited.stream().map(ReservationSlot::getId).toList());
+    }
+
+    @Test
+    void testFindsOverlapsFarInTheFuture() {
+        var near = slot(ReservationKind.BOOKING, 1L, 2, 5);
+        var far = new ReservationSlot(ReservationKind.BOOKING, 2L, 1L,
+                LocalDateTime.of(2300, 1, 1, 14, 0), LocalDateTime.of(2300, 1, 10, 11, 0));
+        tree.insert(near);
+        tree.insert(far);
+
+        assertEquals(far, tree.findFirstOverlap(toEpochSecond(LocalDateTime.of(2300, 1, 5, 14, 0)),
+                toEpochSecond(LocalDateTime.of(2300, 1, 7, 11, 0)), null));
+        assertNull(tree.findFirstOverlap(toEpochSecond(LocalDateTime.of(2300, 1, 10, 11, 0)),
+                toEpochSecond(LocalDateTime.of(2300, 1, 12, 11, 0)), null));
+        assertEquals(near, find(4, 6, null));
+    }
+}
@@ -0,0 +1,98 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyProjection;
+import filipednb.github.com.hostfullyapi.domain.reservation.OccupancyRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
+import filipednb.github.com.hostfullyapi.utils.TimeProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OccupancyProjectionTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 7, 1, 10, 0);
+
+    @Mock
+    private OccupancyRepository occupancyRepository;
+
+    @InjectMocks
+    private OccupancyProjection occupancyProjection;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TimeProvider.setMockTime(NOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TimeProvider.resetMockTime();
+    }
+
+    @Test
+    void testNextFreeDateSkipsTouchingAndOverlappingIntervals() {
+        when(occupancyRepository.streamIntervalsEndingAfter(1L, NOW.toLocalDate().atStartOfDay())).thenReturn(Stream.of(
+                slot(1L, LocalDateTime.of(2024, 6, 28, 15, 0), LocalDateTime.of(2024, 7, 2, 11, 0)),
+                slot(2L, LocalDateTime.of(2024, 7, 2, 15, 0), LocalDateTime.of(2024, 7, 5, 11, 0)),
+                slot(3L, LocalDateTime.of(2024, 7, 3, 0, 0), LocalDateTime.of(2024, 7, 4, 0, 0)),
+                slot(4L, LocalDateTime.of(2024, 7, 6, 15, 0), LocalDateTime.of(2024, 7, 9, 11, 0))));
+
+        occupancyProjection.refresh(1L);
+
+        verify(occupancyRepository).saveNextFreeDate(1L, LocalDate.of(2024, 7, 5));
+    }
+
+    @Test
+    void testNextFreeDateIsTodayWithoutIntervals() {
+        when(occupancyRepository.streamIntervalsEndingAfter(any(), any())).thenReturn(Stream.empty());
+
+        occupancyProjection.refresh(1L);
+
+        verify(occupancyRepository).saveNextFreeDate(1L, NOW.toLocalDate());
+    }
+
+    @Test
+    void testStoredNextFreeDateIsReadUntilItIsPast() {
+        when(occupancyRepository.findNextFreeDate(1L)).thenReturn(Optional.of(LocalDate.of(2024, 7, 3)));
+
+        assertEquals(LocalDate.of(2024, 7, 3), occupancyProjection.findNextFreeDate(1L));
+        verify(occupancyRepository, never()).streamIntervalsEndingAfter(any(), any());
+
+        when(occupancyRepository.findNextFreeDate(1L)).thenReturn(Optional.of(LocalDate.of(2024, 6, 30)));
+        when(occupancyRepository.streamIntervalsEndingAfter(any(), any())).thenReturn(Stream.of(
+                slot(1L, LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 7, 1, 12, 0))));
+
+        assertEquals(LocalDate.of(2024, 7, 2), occupancyProjection.findNextFreeDate(1L));
+    }
+
+    @Test
+    void testRemoveAllDeletesPerKind() {
+        var start = LocalDateTime.of(2024, 7, 1, 15, 0);
+
+        occupancyProjection.removeAll(List.of(
+                slot(1L, start, start.plusDays(2)),
+                slot(2L, start.plusDays(3), start.plusDays(4))));
+
+        verify(occupancyRepository).deleteIntervals(ReservationKind.BOOKING, List.of(1L, 2L));
+    }
+
+    private static ReservationSlot slot(final Long id, final LocalDateTime start, final LocalDateTime end) {
+        return new ReservationSlot(ReservationKind.BOOKING, id, 1L, start, end);
+    }
+}
@@ -0,0 +1,69 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.OptimisticRetryPolicy;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticRetryPolicyTest {
+
+    private SimpleMeterRegistry registry;
+
+    private OptimisticRetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        retryPolicy = new OptimisticRetryPolicy(3, registry);
+    }
+
+    @Test
+    void testRetriesUntilSuccess() {
+        var attempts = new AtomicInteger();
+
+        var result = retryPolicy.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("BookingEntity", 1L);
+            }
+            return "cancelled";
+        });
+
+        assertEquals("cancelled", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, registry.counter("reservation.optimistic.retries").count());
+        assertEquals(0.0, registry.counter("reservation.optimistic.failures").count());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        var attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retryPolicy.run(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("BookingEntity", 1L);
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, registry.counter("reservation.optimistic.failures").count());
+    }
+
+    @Test
+    void testOtherExceptionsAreNotRetried() {
+        var attempts = new AtomicInteger();
+
+        assertThrows(PropertyBusyException.class, () -> retryPolicy.run(() -> {
+            attempts.incrementAndGet();
+            throw new PropertyBusyException("The location is already booked at the given date");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, registry.counter("reservation.optimistic.retries").count());
+    }
+}
@@ -1,22 +1,31 @@
 package filipednb.github.com.hostfullyapi.unit;
 
+import filipednb.github.com.hostfullyapi.cache.EntityCacheEvictor;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyMapper;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyRequest;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyResponse;
+import filipednb.github.com.hostfullyapi.domain.property.PropertyRow;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyService;
 import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
 import filipednb.github.com.hostfullyapi.domain.user.UserService;
 import filipednb.github.com.hostfullyapi.domain.user.UserTypeEnum;
+import filipednb.github.com.hostfullyapi.domain.reservation.LockingModeEnum;
+import filipednb.github.com.hostfullyapi.exception.BadRequestException;
+import filipednb.github.com.hostfullyapi.exception.InvalidDateRangeException;
 import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,50 +44,51 @@ class PropertyServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private EntityCacheEvictor cacheEvictor;
+
     @InjectMocks
     private PropertyService propertyService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(propertyService, "lockingMode", LockingModeEnum.PESSIMISTIC);
     }
 
     @Test
     void testFindAll() {
-        var propertyEntity = new PropertyEntity();
-        var propertyResponse = new PropertyResponse();
-
-        when(propertyRepository.findAll()).thenReturn(Collections.singletonList(propertyEntity));
-        when(propertyMapper.toResponse(any(PropertyEntity.class))).thenReturn(propertyResponse);
+        when(propertyRepository.findAllRows()).thenReturn(Collections.singletonList(row()));
 
         var properties = propertyService.findAll();
 
         assertNotNull(properties);
         assertFalse(properties.isEmpty());
-        verify(propertyRepository, times(1)).findAll();
-        verify(propertyMapper, times(1)).toResponse(propertyEntity);
+        assertEquals("Ocean View Apartment", properties.get(0).getName());
+        assertEquals(2L, properties.get(0).getOwner().getId());
+        verify(propertyRepository, times(1)).findAllRows();
+        verify(propertyRepository, never()).findAll();
+        verifyNoInteractions(propertyMapper);
     }
 
     @Test
     void testFindById_PropertyNotFound() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(propertyRepository.findRowById(any(Long.class))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> propertyService.findById(1L));
     }
 
     @Test
     void testFindById_Success() {
-        var propertyEntity = new PropertyEntity();
-        var propertyResponse = new PropertyResponse();
-
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.of(propertyEntity));
-        when(propertyMapper.toResponse(any(PropertyEntity.class))).thenReturn(propertyResponse);
+        when(propertyRepository.findRowById(any(Long.class))).thenReturn(Optional.of(row()));
 
         var response = propertyService.findById(1L);
 
         assertNotNull(response);
-        verify(propertyRepository, times(1)).findById(1L);
-        verify(propertyMapper, times(1)).toResponse(propertyEntity);
+        assertEquals(1L, response.getId());
+        assertEquals("Jack Spencer", response.getOwner().getName());
+        verify(propertyRepository, times(1)).findRowById(1L);
+        verifyNoInteractions(propertyMapper);
     }
 
     @Test
@@ -159,5 +169,82 @@ class PropertyServiceTest {
         verify(userService, times(1)).findByIdAndType(1L, UserTypeEnum.OWNER);
         verify(propertyRepository, times(1)).save(propertyEntity);
         verify(propertyMapper, times(1)).toResponse(propertyEntity);
+        verify(cacheEvictor, times(1)).evict(PropertyEntity.class, id);
+    }
+
+    @Test
+    void testFindAvailable() {
+        var from = LocalDateTime.of(2024, 7, 1, 15, 0);
+        var to = LocalDateTime.of(2024, 7, 5, 11, 0);
+
+        when(propertyRepository.findAvailable(eq("Miami, FL"), eq(from), eq(to), eq(null), any(Limit.class)))
+                .thenReturn(List.of(row()));
+
+        var properties = propertyService.findAvailable(from, to, "Miami, FL", null, 100);
+
+        assertEquals(1, properties.getItems().size());
+        assertNull(properties.getNextCursor());
+        verify(propertyRepository).findAvailable(eq("Miami, FL"), eq(from), eq(to), eq(null), argThat(limit -> limit.max() == 101));
+    }
+
+    @Test
+    void testFindAvailableReturnsTheCursorOfTheNextPage() {
+        var from = LocalDateTime.of(2024, 7, 1, 15, 0);
+        var to = LocalDateTime.of(2024, 7, 5, 11, 0);
+
+        when(propertyRepository.findAvailable(eq(null), eq(from), eq(to), eq(7L), argThat(limit -> limit.max() == 2)))
+                .thenReturn(List.of(row(), row()));
+
+        var properties = propertyService.findAvailable(from, to, null, 7L, 1);
+
+        assertEquals(1, properties.getItems().size());
+        assertEquals(1L, properties.getNextCursor());
+    }
+
+    @Test
+    void testFindAvailableRejectsOutOfRangeSize() {
+        var from = LocalDateTime.of(2024, 7, 1, 15, 0);
+        var to = LocalDateTime.of(2024, 7, 5, 11, 0);
+
+        assertThrows(BadRequestException.class, () -> propertyService.findAvailable(from, to, null, null, 0));
+        assertThrows(BadRequestException.class, () -> propertyService.findAvailable(from, to, null, null, 101));
+        verify(propertyRepository, never()).findAvailable(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testFindAvailableWithInvertedRange() {
+        var from = LocalDateTime.of(2024, 7, 5, 0, 0);
+
+        assertThrows(InvalidDateRangeException.class, () ->
+                propertyService.findAvailable(from, from.minusDays(1), null, null, 20));
+    }
+
+    @Test
+    void testFindEntityByIdLocksWhileFindByIdDoesNot() {
+        var propertyEntity = new PropertyEntity();
+
+        when(propertyRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(propertyEntity));
+        when(propertyRepository.findRowById(1L)).thenReturn(Optional.of(row()));
+
+        assertSame(propertyEntity, propertyService.findEntityById(1L));
+        propertyService.findById(1L);
+
+        verify(propertyRepository, times(1)).findByIdForUpdate(1L);
+        verify(propertyRepository, times(1)).findRowById(1L);
+    }
+
+    @Test
+    void testFindEntityByIdBumpsVersionInOptimisticMode() {
+        var propertyEntity = new PropertyEntity();
+        ReflectionTestUtils.setField(propertyService, "lockingMode", LockingModeEnum.OPTIMISTIC);
+
+        when(propertyRepository.findByIdForVersionIncrement(1L)).thenReturn(Optional.of(propertyEntity));
+
+        assertSame(propertyEntity, propertyService.findEntityById(1L));
+        verify(propertyRepository, never()).findByIdForUpdate(any());
+    }
+
+    private static PropertyRow row() {
+        return new PropertyRow(1L, "Ocean View Apartment", "Miami, FL", 2L, "Jack Spencer", "jack.spec@dummy.com", UserTypeEnum.OWNER);
     }
-}
\ No newline at end of file
+}
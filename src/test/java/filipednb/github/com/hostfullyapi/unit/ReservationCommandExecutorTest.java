@@ -0,0 +1,132 @@
+package filipednb.github.com.hostfullyapi.unit;
+
+import filipednb.github.com.hostfullyapi.domain.reservation.OptimisticRetryPolicy;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationCommandExecutor;
+import filipednb.github.com.hostfullyapi.exception.PropertyBusyException;
+import filipednb.github.com.hostfullyapi.exception.ServiceUnavailableException;
+import filipednb.github.com.hostfullyapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationCommandExecutorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void testDisabledRunsOnCallerThread() {
+        var executor = new ReservationCommandExecutor(false, 0, 1, TIMEOUT, retryPolicy());
+
+        var thread = executor.execute(() -> {
+            throw new AssertionError("Property id must not be resolved when disabled");
+        }, () -> Thread.currentThread().getName());
+
+        assertFalse(executor.isEnabled());
+        assertEquals(Thread.currentThread().getName(), thread);
+    }
+
+    @Test
+    void testSamePropertyRunsOnSameLane() {
+        var executor = new ReservationCommandExecutor(true, 4, 8, TIMEOUT, retryPolicy());
+
+        var first = executor.execute(() -> 1L, () -> Thread.currentThread().getName());
+        var second = executor.execute(() -> 1L, () -> Thread.currentThread().getName());
+        var other = executor.execute(() -> 2L, () -> Thread.currentThread().getName());
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertTrue(first.startsWith("reservation-lane-"));
+    }
+
+    @Test
+    void testCommandExceptionIsRethrown() {
+        var executor = new ReservationCommandExecutor(true, 1, 8, TIMEOUT, retryPolicy());
+
+        assertThrows(PropertyBusyException.class, () -> executor.execute(() -> 1L, () -> {
+            throw new PropertyBusyException("The location is already booked at the given date");
+        }));
+    }
+
+    @Test
+    void testFullLaneIsRejected() throws Exception {
+        var executor = new ReservationCommandExecutor(true, 1, 1, TIMEOUT, retryPolicy());
+        var running = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        // One command holds the lane, a second one fills its queue
+        var blocking = CompletableFuture.supplyAsync(() -> executor.execute(() -> 1L, () -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        var queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> 1L, () -> true));
+        Thread.sleep(100);
+
+        assertThrows(TooManyRequestsException.class, () -> executor.execute(() -> 1L, () -> true));
+
+        release.countDown();
+        assertTrue(blocking.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSlowCommandIsReportedAsUnavailable() throws Exception {
+        var executor = new ReservationCommandExecutor(true, 1, 8, Duration.ofMillis(100), retryPolicy());
+        var release = new CountDownLatch(1);
+        var queuedRan = new AtomicInteger();
+
+        var blocking = CompletableFuture.runAsync(() -> assertThrows(ServiceUnavailableException.class,
+                () -> executor.execute(() -> 1L, () -> {
+                    try {
+                        return release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })));
+        Thread.sleep(20);
+
+        // Still queued when its wait times out, so it never runs
+        assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> 1L, queuedRan::incrementAndGet));
+
+        release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        assertEquals("done", executor.execute(() -> 1L, () -> "done"));
+        assertEquals(0, queuedRan.get());
+    }
+
+    @Test
+    void testOptimisticLockFailureIsRetriedOnLane() {
+        var executor = new ReservationCommandExecutor(true, 1, 8, TIMEOUT, retryPolicy());
+        var attempts = new AtomicInteger();
+
+        var result = executor.execute(() -> 1L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("BookingEntity", 1L);
+            }
+            return "booked";
+        });
+
+        assertEquals("booked", result);
+        assertEquals(2, attempts.get());
+    }
+
+    private static OptimisticRetryPolicy retryPolicy() {
+        return new OptimisticRetryPolicy(3, new SimpleMeterRegistry());
+    }
+}
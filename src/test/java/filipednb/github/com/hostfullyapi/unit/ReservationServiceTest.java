@@ -1,41 +1,46 @@
 package filipednb.github.com.hostfullyapi.unit;
 
-import filipednb.github.com.hostfullyapi.domain.block.BlockEntity;
-import filipednb.github.com.hostfullyapi.domain.block.BlockRepository;
-import filipednb.github.com.hostfullyapi.domain.booking.BookingEntity;
-import filipednb.github.com.hostfullyapi.domain.booking.BookingRepository;
-import filipednb.github.com.hostfullyapi.domain.booking.BookingStatusEnum;
 import filipednb.github.com.hostfullyapi.domain.property.PropertyEntity;
-import filipednb.github.com.hostfullyapi.domain.property.PropertyRepository;
+import filipednb.github.com.hostfullyapi.domain.reservation.AvailabilityIndex;
+import filipednb.github.com.hostfullyapi.domain.reservation.CalendarVersionTracker;
+import filipednb.github.com.hostfullyapi.domain.reservation.LockingModeEnum;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationKind;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationRepository;
 import filipednb.github.com.hostfullyapi.domain.reservation.ReservationService;
-import filipednb.github.com.hostfullyapi.exception.ResourceNotFoundException;
+import filipednb.github.com.hostfullyapi.domain.reservation.ReservationSlot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ReservationServiceTest {
 
     @Mock
-    private BookingRepository bookingRepository;
+    private ReservationRepository reservationRepository;
 
     @Mock
-    private BlockRepository blockRepository;
+    private AvailabilityIndex availabilityIndex;
 
     @Mock
-    private PropertyRepository propertyRepository;
+    private CalendarVersionTracker calendarVersionTracker;
 
     @InjectMocks
     private ReservationService reservationService;
@@ -46,62 +51,147 @@ class ReservationServiceTest {
     }
 
     @Test
-    void testIsPropertyBlockedOnDateWithBlocks() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.of(new PropertyEntity()));
-        when(blockRepository.findOneByPropertyIdAndDateRange(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(Collections.singletonList(new BlockEntity()));
+    void testFindConflictReturnsEmptyWithoutOverlaps() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
 
-        boolean result = reservationService.isPropertyBlockedOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        when(reservationRepository.findConflicts(1L, start, end)).thenReturn(Collections.emptyList());
 
-        assertTrue(result);
+        assertTrue(reservationService.findConflict(property, start, end, ReservationKind.BLOCK).isEmpty());
     }
 
     @Test
-    void testIsPropertyBlockedOnDatePropertyNotFound() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+    void testFindConflictReturnsOtherKindWhenOnlyItOverlaps() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
+        var booking = new ReservationSlot(ReservationKind.BOOKING, 10L, 1L, start, end);
 
-        assertThrows(ResourceNotFoundException.class, () -> 
-            reservationService.isPropertyBlockedOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+        when(reservationRepository.findConflicts(1L, start, end)).thenReturn(List.of(booking));
+
+        assertEquals(booking, reservationService.findConflict(property, start, end, ReservationKind.BLOCK).orElseThrow());
+    }
+
+    @Test
+    void testFindConflictUsesIndexWhenEnabled() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
+        var slot = new ReservationSlot(ReservationKind.BOOKING, 10L, 1L, start, end);
+
+        when(availabilityIndex.isEnabled()).thenReturn(true);
+        when(availabilityIndex.findOverlap(1L, start, end, ReservationKind.BOOKING)).thenReturn(Optional.of(slot));
+
+        assertEquals(slot, reservationService.findConflict(property, start, end, ReservationKind.BOOKING).orElseThrow());
+        verify(reservationRepository, never()).findConflicts(any(), any(), any());
     }
 
     @Test
-    void testIsPropertyBlockedOnDateNoBlocks() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.of(new PropertyEntity()));
-        when(blockRepository.findOneByPropertyIdAndDateRange(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Collections.emptyList());
+    void testFindConflictReturnsEmptyWhenIndexHasNoOverlap() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
+
+        when(availabilityIndex.isEnabled()).thenReturn(true);
+        when(availabilityIndex.findOverlap(eq(1L), eq(start), eq(end), any())).thenReturn(Optional.empty());
 
-        boolean result = reservationService.isPropertyBlockedOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        assertTrue(reservationService.findConflict(property, start, end, ReservationKind.BLOCK).isEmpty());
+        verify(reservationRepository, never()).findConflicts(any(), any(), any());
+    }
 
-        assertFalse(result);
+    @Test
+    void testFindConflictPrefersGivenKindInSingleQuery() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
+        var booking = new ReservationSlot(ReservationKind.BOOKING, 10L, 1L, start, end);
+        var block = new ReservationSlot(ReservationKind.BLOCK, 20L, 1L, start, end);
+
+        when(reservationRepository.findConflicts(1L, start, end)).thenReturn(List.of(booking, block));
+
+        assertEquals(block, reservationService.findConflict(property, start, end, ReservationKind.BLOCK).orElseThrow());
+        assertEquals(booking, reservationService.findConflict(property, start, end, ReservationKind.BOOKING).orElseThrow());
     }
 
     @Test
-    void testExistsBookingOnDatePropertyNotFound() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+    void testFindConflictFallsBackToOtherKindInIndex() {
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var start = LocalDateTime.now();
+        var end = start.plusDays(1);
+        var block = new ReservationSlot(ReservationKind.BLOCK, 20L, 1L, start, end);
+
+        when(availabilityIndex.isEnabled()).thenReturn(true);
+        when(availabilityIndex.findOverlap(1L, start, end, ReservationKind.BOOKING)).thenReturn(Optional.empty());
+        when(availabilityIndex.findOverlap(1L, start, end, null)).thenReturn(Optional.of(block));
+
+        assertEquals(block, reservationService.findConflict(property, start, end, ReservationKind.BOOKING).orElseThrow());
+        verify(reservationRepository, never()).findConflicts(any(), any(), any());
+    }
 
-        assertThrows(ResourceNotFoundException.class, () -> 
-            reservationService.existsBookingOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    @Test
+    void testDayClaimsModeClaimsNightsInsteadOfQuerying() {
+        ReflectionTestUtils.setField(reservationService, "lockingMode", LockingModeEnum.DAY_CLAIMS);
+        var property = new PropertyEntity();
+        property.setId(1L);
+        var checkIn = LocalDateTime.of(2024, 7, 1, 15, 0);
+        var checkOut = LocalDateTime.of(2024, 7, 4, 11, 0);
+        var slot = new ReservationSlot(ReservationKind.BOOKING, 7L, 1L, checkIn, checkOut);
+
+        assertTrue(reservationService.findConflict(property, checkIn, checkOut, ReservationKind.BOOKING).isEmpty());
+        reservationService.register(slot);
+        reservationService.release(slot);
+
+        verify(reservationRepository, never()).findConflicts(any(), any(), any());
+        verify(reservationRepository).insertClaims(slot,
+                List.of(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 2), LocalDate.of(2024, 7, 3)));
+        verify(reservationRepository).deleteClaims(slot);
     }
 
     @Test
-    void testExistsBookingOnDateNoBookings() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.of(new PropertyEntity()));
-        when(bookingRepository.findByPropertyIdDateRangeAndStatus(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(BookingStatusEnum.ACTIVE)))
-            .thenReturn(Collections.emptyList());
+    void testDayClaimsModeClaimsAtMostAYearOfNights() {
+        ReflectionTestUtils.setField(reservationService, "lockingMode", LockingModeEnum.DAY_CLAIMS);
+        var checkIn = LocalDateTime.of(2024, 7, 1, 15, 0);
+        var slot = new ReservationSlot(ReservationKind.BLOCK, 8L, 1L, checkIn, LocalDateTime.of(9999, 12, 31, 0, 0));
 
-        boolean result = reservationService.existsBookingOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        reservationService.register(slot);
 
-        assertFalse(result);
+        verify(reservationRepository).insertClaims(eq(slot), argThat(days -> days.size() == 366
+                && days.get(0).equals(LocalDate.of(2024, 7, 1))
+                && days.get(365).equals(LocalDate.of(2025, 7, 1))));
     }
 
     @Test
-    void testExistsBookingOnDateWithBookings() {
-        when(propertyRepository.findById(any(Long.class))).thenReturn(Optional.of(new PropertyEntity()));
-        when(bookingRepository.findByPropertyIdDateRangeAndStatus(any(Long.class), any(LocalDateTime.class), any(LocalDateTime.class), eq(BookingStatusEnum.ACTIVE)))
-            .thenReturn(Collections.singletonList(new BookingEntity()));
+    void testRegisterAndReleaseTouchTheCalendarVersion() {
+        var slot = new ReservationSlot(ReservationKind.BLOCK, 3L, 1L,
+                LocalDateTime.of(2024, 7, 1, 0, 0), LocalDateTime.of(2024, 7, 3, 0, 0));
 
-        boolean result = reservationService.existsBookingOnDate(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        reservationService.register(slot);
+        reservationService.release(slot);
 
-        assertTrue(result);
+        verify(calendarVersionTracker).added(slot);
+        verify(calendarVersionTracker).removed(slot);
+    }
+
+    @Test
+    void testEveryWriteReachesTheTracker() {
+        var slot = new ReservationSlot(ReservationKind.BOOKING, 3L, 1L,
+                LocalDateTime.of(2024, 7, 1, 15, 0), LocalDateTime.of(2024, 7, 3, 11, 0));
+        var other = new ReservationSlot(ReservationKind.BOOKING, 4L, 2L,
+                LocalDateTime.of(2024, 7, 1, 15, 0), LocalDateTime.of(2024, 7, 3, 11, 0));
+
+        reservationService.register(slot);
+        reservationService.release(slot);
+        reservationService.releaseAll(List.of(slot, other));
+
+        verify(calendarVersionTracker).added(slot);
+        verify(calendarVersionTracker, times(2)).removed(slot);
+        verify(calendarVersionTracker).removed(other);
     }
-}
\ No newline at end of file
+}
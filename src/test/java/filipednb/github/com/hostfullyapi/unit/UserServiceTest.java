@@ -1,5 +1,6 @@
 package filipednb.github.com.hostfullyapi.unit;
 
+import filipednb.github.com.hostfullyapi.cache.EntityCacheEvictor;
 import filipednb.github.com.hostfullyapi.domain.user.UserEntity;
 import filipednb.github.com.hostfullyapi.domain.user.UserMapper;
 import filipednb.github.com.hostfullyapi.domain.user.UserRepository;
@@ -31,6 +32,9 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private EntityCacheEvictor cacheEvictor;
+
     @InjectMocks
     private UserService userService;
 
@@ -41,18 +45,17 @@ class UserServiceTest {
 
     @Test
     void testGetAll() {
-        var userEntity = new UserEntity();
         var userResponse = new UserResponse();
 
-        when(userRepository.findAll()).thenReturn(Collections.singletonList(userEntity));
-        when(userMapper.toResponse(any(UserEntity.class))).thenReturn(userResponse);
+        when(userRepository.findAllResponses()).thenReturn(Collections.singletonList(userResponse));
 
         var users = userService.getAll();
 
         assertNotNull(users);
         assertFalse(users.isEmpty());
-        verify(userRepository, times(1)).findAll();
-        verify(userMapper, times(1)).toResponse(userEntity);
+        verify(userRepository, times(1)).findAllResponses();
+        verify(userRepository, never()).findAll();
+        verifyNoInteractions(userMapper);
     }
 
     @Test
@@ -101,7 +104,7 @@ class UserServiceTest {
     void testFindById_UserNotFound() {
         var id = 1L;
 
-        when(userRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(userRepository.findResponseById(any(Long.class))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> userService.findById(id));
     }
@@ -109,17 +112,15 @@ class UserServiceTest {
     @Test
     void testFindById_Success() {
         var id = 1L;
-        var userEntity = new UserEntity();
         var userResponse = new UserResponse();
 
-        when(userRepository.findById(any(Long.class))).thenReturn(Optional.of(userEntity));
-        when(userMapper.toResponse(any(UserEntity.class))).thenReturn(userResponse);
+        when(userRepository.findResponseById(any(Long.class))).thenReturn(Optional.of(userResponse));
 
         var response = userService.findById(id);
 
         assertNotNull(response);
-        verify(userRepository, times(1)).findById(id);
-        verify(userMapper, times(1)).toResponse(userEntity);
+        verify(userRepository, times(1)).findResponseById(id);
+        verifyNoInteractions(userMapper);
     }
 
     @Test
@@ -207,5 +208,6 @@ class UserServiceTest {
         verify(userRepository, times(1)).findById(id);
         verify(userRepository, times(1)).save(userEntity);
         verify(userMapper, times(1)).toResponse(userEntity);
+        verify(cacheEvictor, times(1)).evict(UserEntity.class, id);
     }
 }
\ No newline at end of file